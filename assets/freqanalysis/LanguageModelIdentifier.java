@@ -1,6 +1,7 @@
 package assets.freqanalysis;
 
 import assets.general.POSTagger;
+import assets.general.TaggedSentence;
 import assets.parsing.AuthorParser;
 import assets.parsing.CorporaParser;
 import org.languagetool.JLanguageTool;
@@ -25,6 +26,9 @@ public class LanguageModelIdentifier {
     // Weights for unigrams versus bigrams
     private static final double UNIGRAM_WEIGHT = 0.2;
 
+    // Sentences tagged in each batch, between progress reports
+    private static final int PROGRESS_INTERVAL = 1000;
+
     // For writing to and reading from file
     private static final String FIELD_DELIM = ":";
     private static final String ENCODING = "utf-8";
@@ -71,12 +75,12 @@ public class LanguageModelIdentifier {
     }
 
     /**
-     * Analyze a sample of text
+     * Analyze a sample of text. If the thread is interrupted, the analysis
+     * stops after the current batch.
      * @param sample - the text
      */
     public void analyzeSample(String sample, String author) {
         DecimalFormat df = new DecimalFormat("##.##");
-        double i = 0.0;
 
         if (!unigramModels.containsKey(author)) {
             unigramModels.put(author, new HashMap<>());
@@ -90,25 +94,26 @@ public class LanguageModelIdentifier {
         }
 
         List<String> sentences = langTool.sentenceTokenize(sample);
-        for (String sentence : sentences) {
-            if (!sentence.trim().equals("")) {
-                AbstractSequentialList<String[]> wordsAndTags =
-                        tagger.getSentenceWordsAndTags(sentence);
-
-                for (int j = 0; j < wordsAndTags.size() - 1; j++) {
-                    if (wordsAndTags.get(j).length > 1) {
-                        countWord(wordsAndTags.get(j)[0], author);
-                        countBigram(wordsAndTags.get(j)[0],
-                                wordsAndTags.get(j + 1)[0], author);
-                    }
-                }
+        for (int first = 0; first < sentences.size(); first += PROGRESS_INTERVAL) {
+            if (Thread.currentThread().isInterrupted()) {
+                System.out.println("Processing cancelled.");
+                return;
             }
-
-            if (i % 1000 == 0) {
-                double percent = 100 * (i / sentences.size());
-                System.out.println(df.format(percent) + "% processed...");
+            double percent = 100.0 * first / sentences.size();
+            System.out.println(df.format(percent) + "% processed...");
+
+            // Tag a batch of sentences at a time
+            List<TaggedSentence> taggedBatch = tagger.tagSentences(sentences.subList(first,
+                    Math.min(first + PROGRESS_INTERVAL, sentences.size())));
+            for (TaggedSentence tagged : taggedBatch) {
+                String next = tagged.size() > 0 ? tagged.getWord(0) : null;
+                for (int j = 0; j < tagged.size() - 1; j++) {
+                    String word = next;
+                    next = tagged.getWord(j + 1);
+                    countWord(word, author);
+                    countBigram(word, next, author);
+                }
             }
-            i++;
         }
     }
 
@@ -153,29 +158,22 @@ public class LanguageModelIdentifier {
      */
     public double getUnigramSampleProbability(String sample, String authorModel) {
         DecimalFormat df = new DecimalFormat("##.##");
-        double i = 0.0;
         double probability = 0.0;
 
         System.out.println("Calculating sample probability (unigrams)...");
 
         List<String> sentences = langTool.sentenceTokenize(sample);
-        for (String sentence : sentences) {
-            if (!sentence.trim().equals("")) {
-                Iterable<String[]> wordsAndTags =
-                        tagger.getSentenceWordsAndTags(sentence);
-
-                for (String word[] : wordsAndTags) {
-                    if (word.length > 1) {
-                        probability += getLogWordProbability(word[0], authorModel);
-                    }
+        for (int first = 0; first < sentences.size(); first += PROGRESS_INTERVAL) {
+            double percent = 100.0 * first / sentences.size();
+            System.out.println(df.format(percent) + "% processed...");
+
+            List<TaggedSentence> taggedBatch = tagger.tagSentences(sentences.subList(first,
+                    Math.min(first + PROGRESS_INTERVAL, sentences.size())));
+            for (TaggedSentence tagged : taggedBatch) {
+                for (int token = 0; token < tagged.size(); token++) {
+                    probability += getLogWordProbability(tagged.getWord(token), authorModel);
                 }
             }
-
-            if (i % 500 == 0) {
-                double percent = 100 * (i / sentences.size());
-                System.out.println(df.format(percent) + "% processed...");
-            }
-            i++;
         }
 
         return probability;
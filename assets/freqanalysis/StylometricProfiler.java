@@ -4,6 +4,8 @@ import assets.general.POSTagConverter;
 import assets.general.POSTagger;
 import assets.general.SCStringFormat;
 import assets.general.ScoredWord;
+import assets.general.TaggedSentence;
+import assets.gui.SCGUI;
 import org.languagetool.JLanguageTool;
 
 import java.text.DecimalFormat;
@@ -27,6 +29,9 @@ public class StylometricProfiler {
     private final static double ADJ_THRESHOLD = 2.0;
     private final static double N_THRESHOLD = 2.0;
 
+    // Sentences tagged in each batch, between progress reports
+    private final static int PROGRESS_INTERVAL = 500;
+
     private HashMap<String, Integer> adverbs;
     private HashMap<String, Integer> verbs;
     private HashMap<String, Integer> adjectives;
@@ -182,34 +187,38 @@ public class StylometricProfiler {
     }
 
     /**
-     * Analyze a text sample
+     * Analyze a text sample. If the thread is interrupted, the analysis
+     * stops after the current batch and the stats are not calculated.
      * @param sample - the text to analyze
      */
     public void analyzeSample(String sample) {
         DecimalFormat df = new DecimalFormat("##.##");
-        double i = 0.0;
 
-        System.out.println("Processing sample...");
+        if (SCGUI.DEBUG) { System.out.println("Processing sample..."); }
 
         List<String> sentences = langTool.sentenceTokenize(sample);
-        for (String sentence : sentences) {
-            countSentence(sentence);
-
-            if (!sentence.trim().equals("")) {
-                Collection<String[]> wordsAndTags =
-                        tagger.getSentenceWordsAndTags(sentence);
-
-                wordsAndTags.stream().filter(word -> word.length > 1)
-                        .forEach(word -> countWord(word[0], word[1]));
+        for (int first = 0; first < sentences.size(); first += PROGRESS_INTERVAL) {
+            if (Thread.currentThread().isInterrupted()) {
+                if (SCGUI.DEBUG) { System.out.println("Processing cancelled."); }
+                return;
             }
-
-            if (i % 500 == 0) {
-                double percent = 100 * (i / sentences.size());
-                System.out.println(df.format(percent) + "% processed...");
+            double percent = 100.0 * first / sentences.size();
+            if (SCGUI.DEBUG) { System.out.println(df.format(percent) + "% processed..."); }
+
+            // Tag a batch of sentences at a time
+            List<String> batch = sentences.subList(first,
+                    Math.min(first + PROGRESS_INTERVAL, sentences.size()));
+            List<TaggedSentence> taggedBatch = tagger.tagSentences(batch);
+            for (int j = 0; j < taggedBatch.size(); j++) {
+                countSentence(batch.get(j));
+                TaggedSentence tagged = taggedBatch.get(j);
+                for (int token = 0; token < tagged.size(); token++) {
+                    countWord(tagged.getWord(token), tagged.getTag(token));
+                }
             }
-            i++;
         }
         calculateStats();
+        if (SCGUI.DEBUG) { System.out.println("Tagging: " + tagger.getCache()); }
     }
 
     /**
@@ -236,6 +245,15 @@ public class StylometricProfiler {
      * @param pos - the word's part of speech
      */
     void countWord(String word, String pos) {
+        countWord(word, POSTagConverter.getPennTagId(pos));
+    }
+
+    /**
+     * Add a word (with POS) to the counter
+     * @param word - the word to add
+     * @param pos - the word's Penn tag id
+     */
+    void countWord(String word, byte pos) {
         if (SCStringFormat.isNumericalString(word, false)
                 && !numberWords.contains(word)) {
             numberWords.add(word);
@@ -247,22 +265,24 @@ public class StylometricProfiler {
             return;
         }
 
+        // Only the counted families go any further
+        int families = POSTagConverter.getFamilies(pos);
+        if (families == 0) { return; }
+
         String realWord = word.toLowerCase();
         HashMap<String, Integer> map;
-        if (POSTagConverter.isAdverb(pos)) {
+        if ((families & POSTagConverter.ADVERB) != 0) {
             map = adverbs;
             totalAdverbs++;
-        } else if (POSTagConverter.isVerb(pos)) {
+        } else if ((families & POSTagConverter.VERB) != 0) {
             map = verbs;
             totalVerbs++;
-        } else if (POSTagConverter.isAdjective(pos)) {
+        } else if ((families & POSTagConverter.ADJECTIVE) != 0) {
             map = adjectives;
             totalAdjectives++;
-        } else if (POSTagConverter.isNoun(pos)) {
+        } else {
             map = nouns;
             totalNouns++;
-        } else {
-            return;
         }
 
         if (!map.containsKey(realWord)) {
@@ -0,0 +1,202 @@
+package assets.general;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Candidate index backed by a Burkhard-Keller tree over the
+ * Levenshtein metric. Each query only visits the subtrees whose
+ * edge distance lies within [d - k, d + k] of the current node,
+ * so most of the dictionary is never compared against.
+ *
+ * Nodes are stored in parallel int arrays (first child / next
+ * sibling / edge distance) rather than as objects to keep the
+ * tree small for a full dictionary.
+ *
+ * A tree built over a CompactDictionary in sorted order has one node
+ * per word, with node i holding word i, so it can be compiled (see
+ * build()) without any words and reopened over the same dictionary by
+ * reading the three arrays back. The words of those nodes are then read
+ * from the dictionary as they are compared, and never copied out.
+ *
+ * Layout of a compiled tree:
+ *   int nodeCount, int firstChild[nodeCount], int nextSibling[nodeCount],
+ *   int edgeDistance[nodeCount]
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public class BKTreeIndex implements WordCandidateIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NONE = -1;
+
+    private final CompactDictionary dictionary;   // Holds the words of compiled nodes, or null
+    private final int compiledSize;               // Nodes whose word is in the dictionary
+    private String words[];         // The word held by each node added after those
+    private int firstChild[];       // Index of each node's first child
+    private int nextSibling[];      // Index of each node's next sibling
+    private int edgeDistance[];     // Distance from each node to its parent
+    private int size;
+
+    /**
+     * Build a new BK-tree over the given words
+     * @param wordList - the (lowercase) words to index
+     */
+    public BKTreeIndex(Collection<String> wordList) {
+        dictionary = null;
+        compiledSize = 0;
+        int capacity = Math.max(INITIAL_CAPACITY, wordList.size());
+        words = new String[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        edgeDistance = new int[capacity];
+        size = 0;
+        wordList.forEach(this::add);
+    }
+
+    /**
+     * Reopen a compiled tree over the dictionary it was built from
+     * @param d - the dictionary
+     * @param compiled - the tree in the compiled layout (heap or mapped)
+     */
+    public BKTreeIndex(CompactDictionary d, ByteBuffer compiled) {
+        IntBuffer data = compiled.duplicate().asIntBuffer();
+        int nodeCount = data.get();
+        if (nodeCount != d.size()) {
+            throw new IllegalArgumentException("Tree has " + nodeCount
+                    + " nodes for a dictionary of " + d.size() + " words");
+        }
+        dictionary = d;
+        compiledSize = nodeCount;
+        int capacity = Math.max(INITIAL_CAPACITY, nodeCount);
+        words = new String[INITIAL_CAPACITY];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        edgeDistance = new int[capacity];
+        data.get(firstChild, 0, nodeCount);
+        data.get(nextSibling, 0, nodeCount);
+        data.get(edgeDistance, 0, nodeCount);
+        size = nodeCount;
+    }
+
+    /**
+     * Build a tree over every word of a dictionary and compile it
+     * @param dictionary - the dictionary
+     * @return the tree in the compiled layout, positioned at 0
+     */
+    public static ByteBuffer build(CompactDictionary dictionary) {
+        BKTreeIndex tree = new BKTreeIndex(dictionary.getWords());
+        if (tree.size != dictionary.size()) {
+            throw new IllegalStateException("Dictionary words are not unique");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * (1 + 3 * tree.size));
+        IntBuffer data = buffer.asIntBuffer();
+        data.put(tree.size);
+        data.put(tree.firstChild, 0, tree.size);
+        data.put(tree.nextSibling, 0, tree.size);
+        data.put(tree.edgeDistance, 0, tree.size);
+        return buffer;
+    }
+
+    /**
+     * Get the word held by a node
+     * @param node - the node index
+     * @return the word
+     */
+    private CharSequence getWord(int node) {
+        return node < compiledSize ? dictionary.getWordView(node) : words[node - compiledSize];
+    }
+
+    @Override
+    public void add(String word) {
+        if (size == 0) {
+            addNode(word, 0);
+            return;
+        }
+
+        // Walk down the tree until a free edge of the right distance is found
+        StringDistance engine = StringDistance.getLocalInstance();
+        int node = 0;
+        while (true) {
+            int distance = engine.bitParallelDistance(word, getWord(node));
+            if (distance == 0) { return; }
+
+            int child = firstChild[node];
+            while (child != NONE && edgeDistance[child] != distance) {
+                child = nextSibling[child];
+            }
+            if (child == NONE) {
+                int added = addNode(word, distance);
+                nextSibling[added] = firstChild[node];
+                firstChild[node] = added;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Append a new leaf node to the arrays
+     * @param word - the word for the node
+     * @param distance - the distance to the node's parent
+     * @return the index of the new node
+     */
+    private int addNode(String word, int distance) {
+        if (size == firstChild.length) {
+            int capacity = firstChild.length * 2;
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            edgeDistance = Arrays.copyOf(edgeDistance, capacity);
+        }
+        if (size - compiledSize == words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        words[size - compiledSize] = word;
+        firstChild[size] = NONE;
+        nextSibling[size] = NONE;
+        edgeDistance[size] = distance;
+        return size++;
+    }
+
+    @Override
+    public LinkedList<ScoredWord> getClosestWords(String testWord, int maxDistance, int n) {
+        List<ScoredWord> found = new ArrayList<>();
+        if (size == 0) { return new LinkedList<>(); }
+        String query = testWord.toLowerCase();
+
+        // Iterative depth-first search with an explicit stack
+        StringDistance engine = StringDistance.getLocalInstance();
+        int stack[] = new int[INITIAL_CAPACITY];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            CharSequence word = getWord(node);
+            int distance = engine.bitParallelDistance(query, word);
+            if (distance <= maxDistance) {
+                found.add(new ScoredWord(word.toString(), distance));
+            }
+
+            // Triangle inequality: only children within [d - k, d + k] can match
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                if (Math.abs(edgeDistance[child] - distance) <= maxDistance) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = child;
+                }
+            }
+        }
+        return WordCandidateIndex.getBestN(found, n);
+    }
+
+    @Override
+    public int size() { return size; }
+
+}
@@ -0,0 +1,172 @@
+package assets.general;
+
+import assets.parsing.DictionaryWordsParser;
+import assets.parsing.WikipediaSpellingParser;
+
+import java.text.DecimalFormat;
+import java.util.*;
+
+/**
+ * Benchmark comparing closest-word search in the English dictionary
+ * using the original full dictionary scan against each of the
+ * candidate index backends. Queries are taken from the Wikipedia
+ * corpus of commonly misspelled words.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class CandidateIndexBenchmark {
+
+    // Number of misspellings to query and warm-up passes before timing
+    private static final int NUM_QUERIES = 2000;
+    private static final int WARMUP_ROUNDS = 2;
+
+    // Queries with missing results to print per backend
+    private static final int MAX_EXAMPLES = 5;
+
+    private static final DecimalFormat DF = new DecimalFormat("#.###");
+
+    /**
+     * The original getNClosestWords scan: score every dictionary word
+     * whose length is within 2 of the test word, sort, and truncate.
+     * Ties are broken alphabetically, as the indexed backends do, so
+     * that their results can be compared
+     * @param words - the dictionary words
+     * @param testWord - the word to compare to
+     * @param n - the number of words to return
+     * @return the n closest words
+     */
+    private static List<ScoredWord> fullScan(Collection<String> words, String testWord, int n) {
+        List<ScoredWord> distanceList = new LinkedList<>();
+        for (String word : words) {
+            if (Math.abs(word.length() - testWord.length()) < 3) {
+                distanceList.add(new ScoredWord(word,
+                        StringDistance.levenshtein(testWord, word)));
+            }
+        }
+        distanceList.sort(Comparator.<ScoredWord>comparingDouble(candidate -> candidate.score)
+                .thenComparing(candidate -> candidate.word));
+        return distanceList.subList(0, Math.min(n, distanceList.size()));
+    }
+
+    /**
+     * Time a single index over the query list
+     * @param name - the backend name for printing
+     * @param index - the index to query
+     * @param queries - the misspelled words
+     * @return the results of the final timed round, for comparison
+     */
+    private static List<LinkedList<ScoredWord>> timeIndex(String name, WordCandidateIndex index,
+                                                          List<String> queries) {
+        List<LinkedList<ScoredWord>> results = new ArrayList<>();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (String query : queries) {
+                index.getClosestWords(query, EnglishDictionary.MAX_EDIT_DISTANCE,
+                        EnglishDictionary.NUM_CLOSE_WORDS);
+            }
+        }
+
+        long startTime = System.nanoTime();
+        for (String query : queries) {
+            results.add(index.getClosestWords(query, EnglishDictionary.MAX_EDIT_DISTANCE,
+                    EnglishDictionary.NUM_CLOSE_WORDS));
+        }
+        long runTime = System.nanoTime() - startTime;
+
+        System.out.println("\t" + name + ": " + DF.format(runTime / 1000.0 / queries.size())
+                + " us per query");
+        return results;
+    }
+
+    /**
+     * Main method
+     * @param args
+     */
+    public static void main(String... args) {
+        Collection<String> words = new DictionaryWordsParser().getDictionary().keySet();
+        List<String> queries = new ArrayList<>(WikipediaSpellingParser
+                .getWikipediaMap().getMap().keySet());
+        queries.removeIf(words::contains);
+        Collections.shuffle(queries, new Random(0));
+        queries = queries.subList(0, Math.min(NUM_QUERIES, queries.size()));
+
+        System.out.println("Dictionary words: " + words.size()
+                + ", queries: " + queries.size() + "\n");
+
+        // Build each backend
+        System.out.println("BUILD TIMES:");
+        int types[] = { EnglishDictionary.LINEAR_SCAN, EnglishDictionary.BK_TREE,
+                EnglishDictionary.SYMSPELL };
+        String names[] = { "Linear scan", "BK-tree", "SymSpell" };
+        WordCandidateIndex indices[] = new WordCandidateIndex[types.length];
+        for (int i = 0; i < types.length; i++) {
+            long startTime = System.currentTimeMillis();
+            indices[i] = EnglishDictionary.buildCandidateIndex(types[i], words);
+            System.out.println("\t" + names[i] + ": "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        }
+
+        // Time the original scan, keeping its results as the reference
+        System.out.println("\nQUERY TIMES:");
+        List<List<ScoredWord>> expected = new ArrayList<>();
+        long startTime = System.nanoTime();
+        for (String query : queries) {
+            expected.add(fullScan(words, query, EnglishDictionary.NUM_CLOSE_WORDS));
+        }
+        long runTime = System.nanoTime() - startTime;
+        System.out.println("\tOriginal full scan: "
+                + DF.format(runTime / 1000.0 / queries.size()) + " us per query");
+
+        // Time each backend, then compare its results with the full scan's
+        List<List<LinkedList<ScoredWord>>> results = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            results.add(timeIndex(names[i], indices[i], queries));
+        }
+        System.out.println("\nAGREEMENT WITH FULL SCAN:");
+        for (int i = 0; i < types.length; i++) {
+            compareResults(names[i], queries, expected, results.get(i));
+        }
+    }
+
+    /**
+     * Print how many of the full scan's words a backend also returned,
+     * and the queries for which it missed any
+     * @param name - the backend name for printing
+     * @param queries - the misspelled words
+     * @param expected - the full scan's results for each query
+     * @param actual - the backend's results for each query
+     */
+    private static void compareResults(String name, List<String> queries,
+                                       List<List<ScoredWord>> expected,
+                                       List<LinkedList<ScoredWord>> actual) {
+        int expectedWords = 0;
+        int sharedWords = 0;
+        int incompleteQueries = 0;
+        List<String> examples = new ArrayList<>();
+        for (int q = 0; q < queries.size(); q++) {
+            List<String> missing = new ArrayList<>();
+            for (ScoredWord word : expected.get(q)) {
+                if (actual.get(q).contains(word)) {
+                    sharedWords++;
+                } else {
+                    missing.add(word.word + " (" + (int) word.score + ")");
+                }
+            }
+            expectedWords += expected.get(q).size();
+            if (!missing.isEmpty()) {
+                incompleteQueries++;
+                if (examples.size() < MAX_EXAMPLES) {
+                    examples.add(queries.get(q) + " is missing " + missing);
+                }
+            }
+        }
+
+        double overlap = expectedWords == 0 ? 1.0 : (double) sharedWords / expectedWords;
+        System.out.println("\t" + name + ": " + DF.format(100.0 * overlap) + "% of words shared, "
+                + incompleteQueries + " of " + queries.size() + " queries missing a word");
+        for (String example : examples) {
+            System.out.println("\t\t" + example);
+        }
+    }
+
+}
@@ -0,0 +1,258 @@
+package assets.general;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * Immutable, compact word list for fast membership testing.
+ *
+ * Words are kept sorted in a single UTF-16 string pool addressed by an
+ * offsets table, and located with a minimal perfect hash built by
+ * "hash and displace": every word hashes to a bucket, and each bucket
+ * stores the seed that sends all of its words to distinct slots. A
+ * lookup is two hashes of the query plus one comparison against the
+ * pool, with no allocation.
+ *
+ * The same layout is used on disk and in memory, so a compiled section
+ * of the lexical snapshot (see LexicalSnapshot) can be used in place
+ * from a mapped file without any parsing:
+ *
+ *   int magic, int version, int wordCount, int bucketCount, int poolLength
+ *   int seeds[bucketCount]
+ *   int slotToWord[wordCount]
+ *   int offsets[wordCount + 1]
+ *   char pool[poolLength]
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public final class CompactDictionary {
+
+    public static final int MAGIC = 0x53434443;     // "SCDC"
+    public static final int VERSION = 1;
+
+    // Average number of words per hash bucket
+    private static final int AVG_BUCKET_SIZE = 4;
+    private static final int HEADER_INTS = 5;
+
+    private final int wordCount;
+    private final int bucketCount;
+    private final IntBuffer seeds;          // Displacement seed per bucket (0 = empty)
+    private final IntBuffer slotToWord;     // Sorted word id for each hash slot
+    private final IntBuffer offsets;        // Start of each word in the pool
+    private final CharBuffer pool;          // All words, sorted and concatenated
+
+    /**
+     * Wrap an existing compiled buffer (heap or mapped)
+     * @param buffer - the buffer in the compiled layout
+     */
+    public CompactDictionary(ByteBuffer buffer) {
+        ByteBuffer data = buffer.duplicate();
+        data.position(0);
+        if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+            throw new IllegalArgumentException("Not a compiled dictionary of version " + VERSION);
+        }
+        wordCount = data.getInt();
+        bucketCount = data.getInt();
+        int poolLength = data.getInt();
+
+        seeds = slice(data, bucketCount * Integer.BYTES).asIntBuffer();
+        slotToWord = slice(data, wordCount * Integer.BYTES).asIntBuffer();
+        offsets = slice(data, (wordCount + 1) * Integer.BYTES).asIntBuffer();
+        pool = slice(data, poolLength * Character.BYTES).asCharBuffer();
+    }
+
+    /**
+     * Cut the next section out of a buffer and advance past it
+     * @param data - the buffer
+     * @param length - the section length in bytes
+     * @return the section
+     */
+    private static ByteBuffer slice(ByteBuffer data, int length) {
+        ByteBuffer section = data.slice();
+        section.limit(length);
+        data.position(data.position() + length);
+        return section;
+    }
+
+    /**
+     * Build the compiled layout for a word list in memory
+     * @param words - the words to compile (duplicates are dropped)
+     * @return the compiled buffer, positioned at 0
+     */
+    public static ByteBuffer build(Collection<String> words) {
+        String sorted[] = new TreeSet<>(words).toArray(new String[0]);
+        int n = sorted.length;
+        int buckets = Math.max(1, n / AVG_BUCKET_SIZE);
+
+        // Group words by bucket
+        List<List<Integer>> members = new ArrayList<>(buckets);
+        for (int b = 0; b < buckets; b++) { members.add(new ArrayList<>()); }
+        for (int id = 0; id < n; id++) {
+            members.get(Math.floorMod(hash(sorted[id], 0), buckets)).add(id);
+        }
+
+        // Place the largest buckets first, searching for a seed that fits
+        Integer order[] = new Integer[buckets];
+        for (int b = 0; b < buckets; b++) { order[b] = b; }
+        Arrays.sort(order, (b1, b2) -> members.get(b2).size() - members.get(b1).size());
+
+        int seedTable[] = new int[buckets];
+        int slotTable[] = new int[n];
+        boolean taken[] = new boolean[n];
+        int slots[] = new int[0];
+        for (int bucket : order) {
+            List<Integer> ids = members.get(bucket);
+            if (ids.isEmpty()) { break; }
+            if (slots.length < ids.size()) { slots = new int[ids.size()]; }
+
+            for (int seed = 1; ; seed++) {
+                if (fits(sorted, ids, seed, n, taken, slots)) {
+                    seedTable[bucket] = seed;
+                    for (int i = 0; i < ids.size(); i++) {
+                        taken[slots[i]] = true;
+                        slotTable[slots[i]] = ids.get(i);
+                    }
+                    break;
+                }
+            }
+        }
+
+        // Lay out the pool
+        int offsetTable[] = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            offsetTable[id + 1] = offsetTable[id] + sorted[id].length();
+        }
+        int poolLength = offsetTable[n];
+
+        ByteBuffer buffer = ByteBuffer.allocate((HEADER_INTS + buckets + n + n + 1) * Integer.BYTES
+                + poolLength * Character.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(buckets).putInt(poolLength);
+        for (int seed : seedTable) { buffer.putInt(seed); }
+        for (int id : slotTable) { buffer.putInt(id); }
+        for (int offset : offsetTable) { buffer.putInt(offset); }
+        for (String word : sorted) {
+            for (int i = 0; i < word.length(); i++) { buffer.putChar(word.charAt(i)); }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Check whether a seed sends every word in a bucket to a distinct free slot
+     * @param sorted - all words
+     * @param ids - the bucket's word ids
+     * @param seed - the seed to try
+     * @param n - the number of slots
+     * @param taken - the slots already in use
+     * @param slots - scratch space for the computed slots
+     * @return true if the seed works
+     */
+    private static boolean fits(String sorted[], List<Integer> ids, int seed, int n,
+                                boolean taken[], int slots[]) {
+        for (int i = 0; i < ids.size(); i++) {
+            int slot = Math.floorMod(hash(sorted[ids.get(i)], seed), n);
+            if (taken[slot]) { return false; }
+            for (int j = 0; j < i; j++) {
+                if (slots[j] == slot) { return false; }
+            }
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    /**
+     * Seeded hash over the characters of a word (FNV-1a with a final mix)
+     * @param word - the word
+     * @param seed - the seed
+     * @return the hash
+     */
+    static int hash(CharSequence word, int seed) {
+        int h = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+        for (int i = 0; i < word.length(); i++) {
+            h ^= word.charAt(i);
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Check whether a word is in the dictionary (case-sensitive)
+     * @param word - the word to search
+     * @return true if the word is present
+     */
+    public boolean contains(CharSequence word) {
+        return indexOf(word) >= 0;
+    }
+
+    /**
+     * Get the sorted position of a word
+     * @param word - the word to search
+     * @return the word id, or -1 if not present
+     */
+    public int indexOf(CharSequence word) {
+        if (wordCount == 0) { return -1; }
+        int seed = seeds.get(Math.floorMod(hash(word, 0), bucketCount));
+        if (seed == 0) { return -1; }
+
+        // Compare against the single candidate the hash points to
+        int id = slotToWord.get(Math.floorMod(hash(word, seed), wordCount));
+        int start = offsets.get(id);
+        int end = offsets.get(id + 1);
+        if (end - start != word.length()) { return -1; }
+        for (int i = 0; i < word.length(); i++) {
+            if (pool.get(start + i) != word.charAt(i)) { return -1; }
+        }
+        return id;
+    }
+
+    /**
+     * Get a word by its sorted position
+     * @param id - the word id
+     * @return the word
+     */
+    public String getWord(int id) {
+        int start = offsets.get(id);
+        int end = offsets.get(id + 1);
+        char chars[] = new char[end - start];
+        for (int i = 0; i < chars.length; i++) { chars[i] = pool.get(start + i); }
+        return new String(chars);
+    }
+
+    /**
+     * Get a word by its sorted position without copying it
+     * @param id - the word id
+     * @return a read-only view of the word
+     */
+    public CharSequence getWordView(int id) {
+        return pool.subSequence(offsets.get(id), offsets.get(id + 1));
+    }
+
+    /**
+     * Get a read-only, sorted list view of all words
+     * @return the list of words
+     */
+    public List<String> getWords() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) { return getWord(index); }
+
+            @Override
+            public int size() { return wordCount; }
+        };
+    }
+
+    /**
+     * Get the number of words
+     * @return the word count
+     */
+    public int size() { return wordCount; }
+
+}
@@ -1,7 +1,6 @@
 package assets.general;
 
-import assets.parsing.ContractionsParser;
-import assets.parsing.DictionaryWordsParser;
+import assets.parsing.LexicalSnapshot;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -18,8 +17,19 @@ public class EnglishDictionary {
     // Max number of dictionary replacements to consider when ranking
     public static final int NUM_CLOSE_WORDS = 30;
 
-    private Map<String, String> dictionary;         // Recognized English words
+    // Max edit distance for a dictionary word to count as a candidate
+    public static final int MAX_EDIT_DISTANCE = 2;
+
+    // Candidate index backends for closest-word search
+    public static final int LINEAR_SCAN = 0;
+    public static final int BK_TREE = 1;
+    public static final int SYMSPELL = 2;
+
+    private CompactDictionary dictionary;           // Recognized English words
+    private Map<String, String> addedWords;         // Words added to the dictionary
     private Map<String, String> userDictionary;     // Any user-added words
+    private WordCandidateIndex candidateIndex;      // Index for closest words
+    private RegionalVariantIndex variants;          // British spellings of dictionary words
 
     // List of contractions (logical equivalents)
     private Map<String, LinkedList<String>> contractions;
@@ -28,17 +38,47 @@ public class EnglishDictionary {
      * Retrieves resources and builds a new searchable dictionary.
      */
     public EnglishDictionary() {
-        initialize();
+        this(BK_TREE);
+    }
+
+    /**
+     * Builds a new searchable dictionary with a specific candidate index
+     * @param indexType - LINEAR_SCAN, BK_TREE or SYMSPELL
+     */
+    public EnglishDictionary(int indexType) {
+        initialize(indexType);
     }
 
     /**
      * Initializes components.
+     * @param indexType - the candidate index backend to build
      */
-    private void initialize() {
-        DictionaryWordsParser parser = new DictionaryWordsParser();
-        dictionary = parser.getDictionary();
+    private void initialize(int indexType) {
+        LexicalSnapshot snapshot = LexicalSnapshot.getSnapshot();
+        dictionary = snapshot.getDictionary();
+        addedWords = new HashMap<>();
         userDictionary = new HashMap<>();
-        contractions = ContractionsParser.getContractionDictionary();
+        contractions = snapshot.getContractions();
+
+        // The BK-tree and British variants are compiled into the snapshot
+        candidateIndex = indexType == BK_TREE ? snapshot.getCandidateIndex()
+                : buildCandidateIndex(indexType, dictionary.getWords());
+        variants = snapshot.getVariants();
+    }
+
+    /**
+     * Build the candidate index used for closest word search
+     * @param indexType - the backend to build
+     * @param words - the words to index
+     * @return the new index
+     */
+    static WordCandidateIndex buildCandidateIndex(int indexType, Collection<String> words) {
+        switch (indexType) {
+            case LINEAR_SCAN: return new LinearScanIndex(words);
+            case BK_TREE: return new BKTreeIndex(words);
+            case SYMSPELL: return new SymSpellIndex(words, MAX_EDIT_DISTANCE);
+            default: throw new IllegalArgumentException("Unknown index type: " + indexType);
+        }
     }
 
     /**
@@ -47,8 +87,9 @@ public class EnglishDictionary {
      */
     void addToDictionary(String word) {
         String lowerWord = word.toLowerCase();
-        if (!dictionary.containsKey(lowerWord)) {
-            dictionary.put(lowerWord, lowerWord);
+        if (!isDictionaryWord(lowerWord)) {
+            addedWords.put(lowerWord, lowerWord);
+            candidateIndex.add(lowerWord);
         }
     }
 
@@ -58,7 +99,7 @@ public class EnglishDictionary {
      */
     public void addAllToDictionary(Map<String, String> otherDict) {
         otherDict.keySet().stream().filter(word
-                -> !dictionary.containsKey(word))
+                -> !isDictionaryWord(word))
                 .forEach(this::addToDictionary);
     }
 
@@ -74,6 +115,15 @@ public class EnglishDictionary {
         }
     }
 
+    /**
+     * Check if a word is the British spelling of a dictionary word
+     * @param word - the lowercase word
+     * @return true if the word is a British variant
+     */
+    public boolean isBritishVariant(String word) {
+        return variants.isBritishVariant(word);
+    }
+
     /**
      * Check if a word is a known contraction
      * @param word - the word
@@ -98,31 +148,20 @@ public class EnglishDictionary {
      * @return the LinkedList of closest words from best to worst
      */
     public LinkedList<String> getNClosestWords(String testWord, int n) {
-        List<ScoredWord> distanceList = new LinkedList<>();
 
         // If this is already a word we only want that word (regardless of n)
         if (isDictionaryWord(testWord)) {
             return new LinkedList<>(Arrays.asList(testWord));
         }
-        Set<String> wordSet = dictionary.keySet();      // Get dictionary words
-        wordSet.addAll(userDictionary.keySet());        // Get user words
-        int currentScore;
-
-        // Go through dictionary and retrieve n best scores
-        for (String word : wordSet) {
-            if (Math.abs(word.length() - testWord.length()) < 3) {
-                currentScore = stringDistance(testWord, word);
-                distanceList.add(new ScoredWord(word, currentScore));
-            }
-        }
 
-        // Sort from min to max distance and truncate list
-        Collections.sort(distanceList);
+        // Query the candidate index for the n best scores
+        Collection<ScoredWord> distanceList
+                = candidateIndex.getClosestWords(testWord, MAX_EDIT_DISTANCE, n);
 
         // Add multi-word suggestions, if any, to the front
         LinkedList<String> multi = generateMultiWordSuggestions(testWord);
-        multi.addAll(distanceList.subList(0, Math.min(n, distanceList.size()))
-                .stream().map(close -> close.word).collect(Collectors.toList()));
+        multi.addAll(distanceList.stream().map(close -> close.word)
+                .collect(Collectors.toList()));
 
         // Add contractions, if any, to the front
         if (isContraction(testWord)) {
@@ -167,7 +206,7 @@ public class EnglishDictionary {
      * @return true if the word is in the dictionary
      */
     boolean isDictionaryWord(String test) {
-        return dictionary.containsKey(test);
+        return dictionary.contains(test) || addedWords.containsKey(test);
     }
 
     /**
@@ -189,4 +228,10 @@ public class EnglishDictionary {
         return StringDistance.levenshtein(testWord, dictWord);
     }
 
+    /**
+     * Getter for the candidate index
+     * @return the index used for closest word search
+     */
+    WordCandidateIndex getCandidateIndex() { return candidateIndex; }
+
 }
@@ -0,0 +1,55 @@
+package assets.general;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Baseline candidate index that compares the test word against
+ * every stored word of a similar length. Kept as a reference
+ * point for benchmarking the faster backends.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public class LinearScanIndex implements WordCandidateIndex {
+
+    private final List<String> words;         // Every word in the index
+
+    /**
+     * Build a new linear index over the given words
+     * @param wordList - the (lowercase) words to index
+     */
+    public LinearScanIndex(Collection<String> wordList) {
+        words = new ArrayList<>(wordList);
+    }
+
+    @Override
+    public void add(String word) {
+        words.add(word);
+    }
+
+    @Override
+    public LinkedList<ScoredWord> getClosestWords(String testWord, int maxDistance, int n) {
+        List<ScoredWord> distanceList = new ArrayList<>();
+        String query = testWord.toLowerCase();
+        StringDistance engine = StringDistance.getLocalInstance();
+        int distance;
+
+        // Go through every word of a plausible length
+        for (String word : words) {
+            if (Math.abs(word.length() - query.length()) <= maxDistance) {
+                distance = engine.boundedDistance(query, word, maxDistance);
+                if (distance <= maxDistance) {
+                    distanceList.add(new ScoredWord(word, distance));
+                }
+            }
+        }
+        return WordCandidateIndex.getBestN(distanceList, n);
+    }
+
+    @Override
+    public int size() { return words.size(); }
+
+}
@@ -0,0 +1,297 @@
+package assets.general;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe cache of n-gram log probabilities.
+ *
+ * An n-gram of up to three word ids is packed into a single long (21
+ * bits per id, offset by one so shorter n-grams never collide with
+ * longer ones), so no key objects are allocated. The cache is split
+ * into segments, each a primitive open-addressing table with linear
+ * probing guarded by its own lock. When a segment is full the clock
+ * hand sweeps its slots, clearing reference bits, and evicts the first
+ * entry that has not been read since the last sweep.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public final class NGramCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+
+    // Returned by pack() for n-grams that cannot be cached
+    public static final long NO_KEY = 0L;
+
+    private static final int BITS_PER_ID = 21;
+    private static final int MAX_PACKED_ID = (1 << BITS_PER_ID) - 2;
+    private static final int MAX_PACKED_LENGTH = 3;
+    private static final int SEGMENT_BITS = 4;
+
+    private final Segment segments[];
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * Create a cache with the default size
+     */
+    public NGramCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Create a cache holding about the given number of entries
+     * @param maxEntries - the total number of entries to keep
+     */
+    public NGramCache(int maxEntries) {
+        segments = new Segment[1 << SEGMENT_BITS];
+        int perSegment = Math.max(1, maxEntries >> SEGMENT_BITS);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        hits = new LongAdder();
+        misses = new LongAdder();
+    }
+
+    /**
+     * Pack a range of an n-gram's word ids into a cache key
+     * @param ngram - the word ids
+     * @param start - the first position
+     * @param end - one past the last position
+     * @return the key, or NO_KEY if the n-gram is too long or an id too large
+     */
+    public static long pack(int ngram[], int start, int end) {
+        if (end - start > MAX_PACKED_LENGTH || end <= start) { return NO_KEY; }
+        long key = 0L;
+        for (int i = start; i < end; i++) {
+            if (ngram[i] < 0 || ngram[i] > MAX_PACKED_ID) { return NO_KEY; }
+            key = (key << BITS_PER_ID) | (ngram[i] + 1);
+        }
+        return key;
+    }
+
+    /**
+     * Look up a cached log probability
+     * @param key - the packed n-gram
+     * @return the log probability, or NaN if it is not cached
+     */
+    public float get(long key) {
+        long hash = mix(key);
+        float value = getSegment(hash).get(key, (int) hash);
+        if (Float.isNaN(value)) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Cache a log probability, evicting an older entry if needed
+     * @param key - the packed n-gram
+     * @param value - the log probability
+     */
+    public void put(long key, float value) {
+        if (key == NO_KEY) { return; }
+        long hash = mix(key);
+        getSegment(hash).put(key, (int) hash, value);
+    }
+
+    /**
+     * Empty the cache and reset the counters
+     */
+    public void clear() {
+        for (Segment segment : segments) { segment.clear(); }
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Spread the bits of a key for slot and segment selection
+     * @param key - the packed n-gram
+     * @return the mixed hash
+     */
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Get the segment responsible for a hash
+     * @param hash - the mixed hash
+     * @return the segment
+     */
+    private Segment getSegment(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    /**
+     * Get the number of lookups that found a cached value
+     * @return the hit count
+     */
+    public long getHits() { return hits.sum(); }
+
+    /**
+     * Get the number of lookups that missed
+     * @return the miss count
+     */
+    public long getMisses() { return misses.sum(); }
+
+    /**
+     * Get the fraction of lookups that hit
+     * @return the hit rate, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * Get the number of cached entries
+     * @return the entry count
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) { size += segment.size(); }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "NGramCache[entries=" + size() + ", hits=" + getHits()
+                + ", misses=" + getMisses()
+                + String.format(", hitRate=%.3f]", getHitRate());
+    }
+
+    /**
+     * One lock-protected open-addressing table with clock eviction
+     */
+    private static final class Segment {
+
+        private final long keys[];          // Packed keys (NO_KEY = empty slot)
+        private final float values[];       // Log probability for each slot
+        private final boolean referenced[]; // Clock reference bit for each slot
+        private final int mask;
+        private final int maxSize;          // Kept at half the table to keep probes short
+        private int size;
+        private int hand;
+
+        /**
+         * Create a segment
+         * @param maxEntries - the number of entries to keep
+         */
+        Segment(int maxEntries) {
+            int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new float[capacity];
+            referenced = new boolean[capacity];
+            mask = capacity - 1;
+            maxSize = capacity / 2;
+        }
+
+        /**
+         * Look up a key
+         * @param key - the packed n-gram
+         * @param hash - the low bits of the mixed hash
+         * @return the value, or NaN if absent
+         */
+        synchronized float get(long key, int hash) {
+            for (int i = hash & mask; keys[i] != NO_KEY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    referenced[i] = true;
+                    return values[i];
+                }
+            }
+            return Float.NaN;
+        }
+
+        /**
+         * Insert or update a key
+         * @param key - the packed n-gram
+         * @param hash - the low bits of the mixed hash
+         * @param value - the value
+         */
+        synchronized void put(long key, int hash, float value) {
+            int i = hash & mask;
+            while (keys[i] != NO_KEY) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            if (size >= maxSize) {
+                evict();
+
+                // Eviction may have shifted entries, so find the free slot again
+                i = hash & mask;
+                while (keys[i] != NO_KEY) { i = (i + 1) & mask; }
+            }
+            keys[i] = key;
+            values[i] = value;
+            referenced[i] = false;
+            size++;
+        }
+
+        /**
+         * Advance the clock hand until an unreferenced entry is found and remove it
+         */
+        private void evict() {
+            while (true) {
+                if (keys[hand] != NO_KEY) {
+                    if (!referenced[hand]) {
+                        remove(hand);
+                        return;
+                    }
+                    referenced[hand] = false;
+                }
+                hand = (hand + 1) & mask;
+            }
+        }
+
+        /**
+         * Remove the entry in a slot, shifting later entries of the same
+         * probe run back so that lookups never stop early
+         * @param slot - the slot to empty
+         */
+        private void remove(int slot) {
+            int i = slot;
+            int j = slot;
+            while (true) {
+                keys[i] = NO_KEY;
+                int home;
+                do {
+                    j = (j + 1) & mask;
+                    if (keys[j] == NO_KEY) {
+                        size--;
+                        return;
+                    }
+                    home = (int) mix(keys[j]) & mask;
+                } while (i <= j ? (i < home && home <= j) : (i < home || home <= j));
+                keys[i] = keys[j];
+                values[i] = values[j];
+                referenced[i] = referenced[j];
+                i = j;
+            }
+        }
+
+        /**
+         * Remove every entry
+         */
+        synchronized void clear() {
+            Arrays.fill(keys, NO_KEY);
+            size = 0;
+            hand = 0;
+        }
+
+        /**
+         * Get the number of entries
+         * @return the entry count
+         */
+        synchronized int size() { return size; }
+
+    }
+
+}
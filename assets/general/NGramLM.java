@@ -3,10 +3,10 @@ package assets.general;
 import assets.gui.SCGUI;
 import edu.berkeley.nlp.lm.ArrayEncodedProbBackoffLm;
 import edu.berkeley.nlp.lm.NgramLanguageModel;
+import edu.berkeley.nlp.lm.WordIndexer;
 import edu.berkeley.nlp.lm.io.LmReaders;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Class to encapsulate n-gram functionality using
@@ -30,11 +30,14 @@ public class NGramLM {
 
     // The BerkeleyLM model
     private ArrayEncodedProbBackoffLm<String> model;
+    private WordIndexer<String> wordIndexer;
+    private final NGramCache cache;     // Log probabilities shared by all callers
 
     /**
      * Create a new NGramLM
      */
     public NGramLM() {
+        cache = new NGramCache();
         loadModel();
     }
 
@@ -46,6 +49,7 @@ public class NGramLM {
         NgramLanguageModel<String> ngramLanguageModel
                 = LmReaders.readLmBinary(BINARY_FILE);
         model = (ArrayEncodedProbBackoffLm<String>) ngramLanguageModel;
+        wordIndexer = model.getWordIndexer();
     }
 
     /**
@@ -62,11 +66,19 @@ public class NGramLM {
         if (errorIndex == -1) { return new LinkedList<>(); }
         String errorWord = window.get(errorIndex);
 
+        // Resolve all word ids once, then score every candidate in one batch
+        String candidates[] = replacements.toArray(new String[replacements.size()]);
+        int candidateIds[] = new int[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            candidateIds[i] = getWordId(candidates[i]);
+        }
+        float scores[] = scoreReplacements(getWordIds(window), errorIndex, candidateIds);
+
         // Sort by n-gram probability
-        LinkedList<ScoredWord> evaluate = replacements.stream().map(
-                replacement -> new ScoredWord(replacement,
-                        getReplacementProbability(window, errorIndex, replacement)))
-                .collect(Collectors.toCollection(LinkedList::new));
+        LinkedList<ScoredWord> evaluate = new LinkedList<>();
+        for (int i = 0; i < candidates.length; i++) {
+            evaluate.add(new ScoredWord(candidates[i], scores[i]));
+        }
         sortSameBaseWordsByTense(evaluate, errorWord);
 
         // For debugging. Print the list and the scores
@@ -174,30 +186,48 @@ public class NGramLM {
         return shorter.startsWith(longer.substring(0, prefixLength));
     }
 
+    /**
+     * Score a batch of candidates for one position of a window. Only the
+     * n-grams that contain the error position are evaluated, since the
+     * others score the same for every candidate; a window no longer than
+     * MAX_N_GRAM_SIZE is scored as a single n-gram.
+     * @param context - the word ids of the window
+     * @param errorIndex - the position of the error in the window
+     * @param candidates - the word ids of the candidates
+     * @return the log probability of each candidate, in candidate order
+     */
+    public float[] scoreReplacements(int context[], int errorIndex, int candidates[]) {
+        float scores[] = new float[candidates.length];
+        if (errorIndex < 0 || errorIndex >= context.length) { return scores; }
+
+        // Range of n-gram start positions that cover the error
+        int size = Math.min(MAX_N_GRAM_SIZE, context.length);
+        int first = Math.max(0, errorIndex - size + 1);
+        int last = Math.min(errorIndex, context.length - size);
+
+        int ngram[] = Arrays.copyOf(context, context.length);
+        for (int c = 0; c < candidates.length; c++) {
+            ngram[errorIndex] = candidates[c];
+            float score = 0.0f;
+            for (int start = first; start <= last; start++) {
+                score += getLogProb(ngram, start, start + size);
+            }
+            scores[c] = score;
+        }
+        return scores;
+    }
+
     /**
      * Get the probability of this replacement in a given window
-     * @param window - the window
+     * @param window - the window (not modified)
      * @param errorIndex - the index of the error
      * @param replacement - the replacement for the error
      * @return the replacement probability
      */
-    public double getReplacementProbability(LinkedList<String> window, int errorIndex,
+    public double getReplacementProbability(List<String> window, int errorIndex,
                                             String replacement) {
-        window.set(errorIndex, replacement);
-
-        // If we don't need to evaluate multiple n-grams just return
-        if (window.size() <= MAX_N_GRAM_SIZE) {
-            return getLogNGramProbability(window, 0, window.size() - 1);
-        }
-
-        // Evaluate multiple n-grams
-        double probability = 0.0;
-        for (int i = 0; i <= window.size()
-                - MAX_N_GRAM_SIZE; i++) {
-            probability += getLogNGramProbability(window,
-                    i, i + MAX_N_GRAM_SIZE);
-        }
-        return probability;
+        return scoreReplacements(getWordIds(window), errorIndex,
+                new int[] { getWordId(replacement) })[0];
     }
 
     /**
@@ -208,7 +238,7 @@ public class NGramLM {
      * @param endIndex - the end position of the n-gram
      * @return the calculated score
      */
-    public float getLogNGramProbability(AbstractList<String> window,
+    public float getLogNGramProbability(List<String> window,
                                         int startIndex, int endIndex) {
         int length = endIndex - startIndex;
         if (length < MIN_N_GRAM_SIZE
@@ -218,30 +248,57 @@ public class NGramLM {
         }
 
         // Look up word indices, calculate probability, return
-        return model.getLogProb(getWordIndices(
-                new LinkedList<>(window.subList(startIndex, endIndex))));
+        int ids[] = getWordIds(window.subList(startIndex, endIndex));
+        return getLogProb(ids, 0, ids.length);
     }
 
     /**
-     * Get an int array from a phrase for querying in the LM
+     * Get the log probability of a range of word ids, going through the cache
+     * @param ngram - the word ids
+     * @param start - the first position
+     * @param end - one past the last position
+     * @return the log probability
+     */
+    private float getLogProb(int ngram[], int start, int end) {
+        long key = NGramCache.pack(ngram, start, end);
+        if (key == NGramCache.NO_KEY) {
+            return model.getLogProb(ngram, start, end);
+        }
+        float logProb = cache.get(key);
+        if (Float.isNaN(logProb)) {
+            logProb = model.getLogProb(ngram, start, end);
+            cache.put(key, logProb);
+        }
+        return logProb;
+    }
+
+    /**
+     * Getter for the log probability cache, for its hit/miss counters
+     * @return the cache
+     */
+    public NGramCache getCache() { return cache; }
+
+    /**
+     * Get the LM word ids for a list of words
      * @param words - the list of words
-     * @return the int array
+     * @return the int array of ids
      */
-    private int[] getWordIndices(AbstractSequentialList<String> words) {
-        int indices[] = new int[words.size()];
-        for (int i = 0; i < words.size(); i++) {
-            indices[i] = getWordIndex(words.get(i));
+    public int[] getWordIds(List<String> words) {
+        int ids[] = new int[words.size()];
+        int i = 0;
+        for (String word : words) {
+            ids[i++] = getWordId(word);
         }
-        return indices;
+        return ids;
     }
 
     /**
-     * Helper method: get the word index associated with a given word
+     * Get the LM word id for a word, or the unknown id if it has none
      * @param word - the word to query
-     * @return the index
+     * @return the id
      */
-    private int getWordIndex(String word) {
-        return model.getWordIndexer().getIndexPossiblyUnk(word);
+    public int getWordId(String word) {
+        return wordIndexer.getIndexPossiblyUnk(word);
     }
 
     /**
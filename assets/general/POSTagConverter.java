@@ -4,212 +4,277 @@ package assets.general;
  * Class to convert tagsets between CLAWS7
  * (used by n-grams) and Penn Treebank (used by Stanford).
  *
+ * Tags are interned once into small ids: every Penn tag has an id, and
+ * every CLAWS7 tag maps to the id of its Penn tag. Each Penn id has a
+ * precomputed bitmask of the word families it belongs to, so finding a
+ * tag's id is one hash probe and classifying it is one array lookup,
+ * with no case conversion or other allocation.
+ *
  * Written for the StyleCheck program by Alex Welton.
  *
  */
 public class POSTagConverter {
 
-    /**
-     * Static method to return the Penn tag related to
-     * the more detailed CLAWS7 tag. Conversion in the opposite
-     * direction is impractical, as it would require implementing
-     * a CLAWS7 parser.
-     * @param tag - the CLAWS7 tag
-     * @return the appropriate Penn tag
-     */
-    public static String CLAWS7ToPenn(String tag) {
-        String upTag = tag.toUpperCase();
-
-        switch(upTag) {
-
+    // Penn tag ids, grouped by family
+    public static final byte UNKNOWN_TAG = 0;
+    public static final byte RB = 1;
+    public static final byte RBR = 2;
+    public static final byte RBS = 3;
+    public static final byte WRB = 4;
+    public static final byte VB = 5;
+    public static final byte VBD = 6;
+    public static final byte VBG = 7;
+    public static final byte VBN = 8;
+    public static final byte JJ = 9;
+    public static final byte JJR = 10;
+    public static final byte JJS = 11;
+    public static final byte NN = 12;
+    public static final byte NNS = 13;
+    public static final byte NNP = 14;
+    public static final byte NNPS = 15;
+
+    // Word family bits
+    public static final int ADVERB = 1;
+    public static final int VERB = 1 << 1;
+    public static final int ADJECTIVE = 1 << 2;
+    public static final int NOUN = 1 << 3;
+    public static final int ALLOWED_TYPES = ADVERB | VERB | ADJECTIVE | NOUN;
+
+    // Penn tag for each id; the ids past NNPS have no family
+    private static final String PENN_TAGS[] = {
+            "UNKNOWN",
+            "RB", "RBR", "RBS", "WRB",
+            "VB", "VBD", "VBG", "VBN",
+            "JJ", "JJR", "JJS",
+            "NN", "NNS", "NNP", "NNPS",
+            "VBP", "VBZ", "CC", "CD", "DT", "EX", "FW", "IN", "LS", "MD", "PDT",
+            "POS", "PRP", "PRP$", "RP", "SYM", "TO", "UH", "WDT", "WP", "WP$",
+            "#", "$", "``", "''", "-LRB-", "-RRB-", ",", ".", ":"
+    };
+
+    // CLAWS7 tags and the Penn tags they convert to
+    private static final String CLAWS7_TO_PENN[][] = {
             // Coordinating conjunctions
-            case "CC": return "CC";
-            case "CCB": return "CC";
+            { "CC", "CC" }, { "CCB", "CC" },
 
             // Subordinate conjunctions/prepositions
-            case "CS": return "IN";
-            case "CSA": return "IN";
-            case "CSN": return "IN";
-            case "CST": return "IN";
-            case "CSW": return "IN";
+            { "CS", "IN" }, { "CSA", "IN" }, { "CSN", "IN" }, { "CST", "IN" },
+            { "CSW", "IN" },
 
             // Determiners
-            case "DA": return "DT";
-            case "DA1": return "DT";
-            case "DA2": return "DT";
-            case "DAR": return "DT";
-            case "DAT": return "DT";
-            case "DD": return "DT";
-            case "DD1": return "DT";
-            case "DD2": return "DT";
+            { "DA", "DT" }, { "DA1", "DT" }, { "DA2", "DT" }, { "DAR", "DT" },
+            { "DAT", "DT" }, { "DD", "DT" }, { "DD1", "DT" }, { "DD2", "DT" },
 
             // Predeterminers
-            case "DB": return "PDT";
-            case "DB2": return "PDT";
+            { "DB", "PDT" }, { "DB2", "PDT" },
 
             // Wh-Determiners
-            case "DDQ": return "WDT";
-            case "DDQGE": return "WDT";
-            case "DDQV": return "WDT";
+            { "DDQ", "WDT" }, { "DDQGE", "WDT" }, { "DDQV", "WDT" },
 
             // Cardinal numbers
-            case "MC": return "CD";
-            case "MC1": return "CD";
-            case "MC2": return "CD";
-            case "MCGE": return "CD";
-            case "MCMC": return "CD";
-            case "MD": return "CD";
-            case "MF": return "CD";
+            { "MC", "CD" }, { "MC1", "CD" }, { "MC2", "CD" }, { "MCGE", "CD" },
+            { "MCMC", "CD" }, { "MD", "CD" }, { "MF", "CD" },
 
             // Singular or mass nouns
-            case "ND1": return "NN";
-            case "NN": return "NN";
-            case "NN1": return "NN";
-            case "NNA": return "NN";
-            case "NNB": return "NN";
-            case "NNL1": return "NN";
-            case "NNO": return "NN";
-            case "NNT1": return "NN";
-            case "NNU": return "NN";
-            case "NNU1": return "NN";
+            { "ND1", "NN" }, { "NN", "NN" }, { "NN1", "NN" }, { "NNA", "NN" },
+            { "NNB", "NN" }, { "NNL1", "NN" }, { "NNO", "NN" }, { "NNT1", "NN" },
+            { "NNU", "NN" }, { "NNU1", "NN" },
 
             // Plural nouns
-            case "NN2": return "NNS";
-            case "NNL2": return "NNS";
-            case "NNO2": return "NNS";
-            case "NNT2": return "NNS";
-            case "NNU2": return "NNS";
+            { "NN2", "NNS" }, { "NNL2", "NNS" }, { "NNO2", "NNS" }, { "NNT2", "NNS" },
+            { "NNU2", "NNS" },
 
             // Singular proper nouns
-            case "NP": return "NNP";
-            case "NP1": return "NNP";
-            case "NPD1": return "NNP";
-            case "NPM1": return "NNP";
+            { "NP", "NNP" }, { "NP1", "NNP" }, { "NPD1", "NNP" }, { "NPM1", "NNP" },
 
             // Plural proper nouns
-            case "NP2": return "NNPS";
-            case "NPD2": return "NNPS";
-            case "NPM2": return "NNPS";
+            { "NP2", "NNPS" }, { "NPD2", "NNPS" }, { "NPM2", "NNPS" },
 
             // Personal pronouns
-            case "PN": return "PRP";
-            case "PN1": return "PRP";
-            case "PNX1": return "PRP";
-            case "PPH1": return "PRP";
-            case "PPHO1": return "PRP";
-            case "PPHO2": return "PRP";
-            case "PPHS1": return "PRP";
-            case "PPHS2": return "PRP";
-            case "PPIO1": return "PRP";
-            case "PPIO2": return "PRP";
-            case "PPIS1": return "PRP";
-            case "PPIS2": return "PRP";
-            case "PPX1": return "PRP";
-            case "PPX2": return "PRP";
-            case "PPY": return "PRP";
+            { "PN", "PRP" }, { "PN1", "PRP" }, { "PNX1", "PRP" }, { "PPH1", "PRP" },
+            { "PPHO1", "PRP" }, { "PPHO2", "PRP" }, { "PPHS1", "PRP" }, { "PPHS2", "PRP" },
+            { "PPIO1", "PRP" }, { "PPIO2", "PRP" }, { "PPIS1", "PRP" }, { "PPIS2", "PRP" },
+            { "PPX1", "PRP" }, { "PPX2", "PRP" }, { "PPY", "PRP" },
 
             // Wh-Pronouns
-            case "PNQO": return "WP";
-            case "PNQS": return "WP";
-            case "PNQV": return "WP";
+            { "PNQO", "WP" }, { "PNQS", "WP" }, { "PNQV", "WP" },
 
             // Possessive pronouns
-            case "PPGE": return "PRP$";
+            { "PPGE", "PRP$" },
 
             // Adverbs
-            case "RA": return "RB";
-            case "REX": return "RB";
-            case "RG": return "RB";
-            case "RGQ": return "RB";
-            case "RGQV": return "RB";
-            case "RL": return "RB";
-            case "RP": return "RB";
-            case "RPK": return "RB";
-            case "RR": return "RB";
-            case "RT": return "RB";
+            { "RA", "RB" }, { "REX", "RB" }, { "RG", "RB" }, { "RGQ", "RB" },
+            { "RGQV", "RB" }, { "RL", "RB" }, { "RP", "RB" }, { "RPK", "RB" },
+            { "RR", "RB" }, { "RT", "RB" },
 
             // Wh-Adverbs
-            case "RRQ": return "WRB";
-            case "RRQV": return "WRB";
+            { "RRQ", "WRB" }, { "RRQV", "WRB" },
 
             // Comparative adverbs
-            case "RGR": return "RBR";
-            case "RRR": return "RBR";
+            { "RGR", "RBR" }, { "RRR", "RBR" },
 
             // Superlative adverbs
-            case "RGT": return "RBS";
-            case "RRT": return "RBS";
+            { "RGT", "RBS" }, { "RRT", "RBS" },
 
             // Infinitive marker
-            case "TO": return "TO";
+            { "TO", "TO" },
 
             // Interjections
-            case "UH": return "UH";
+            { "UH", "UH" },
 
             // Modal
-            case "VM": return "MD";
-            case "VMK": return "MD";
+            { "VM", "MD" }, { "VMK", "MD" },
 
             // Verbs in base form
-            case "VB0": return "VB";
-            case "VBI": return "VB";
-            case "VD0": return "VB";
-            case "VDI": return "VB";
-            case "VH0": return "VB";
-            case "VHI": return "VB";
-            case "VVI": return "VB";
+            { "VB0", "VB" }, { "VBI", "VB" }, { "VD0", "VB" }, { "VDI", "VB" },
+            { "VH0", "VB" }, { "VHI", "VB" }, { "VVI", "VB" },
 
             // Verbs in past tense
-            case "VBDZ": return "VBD";
-            case "VDD": return "VBD";
-            case "VHD": return "VBD";
-            case "VVD": return "VBD";
+            { "VBDZ", "VBD" }, { "VDD", "VBD" }, { "VHD", "VBD" }, { "VVD", "VBD" },
 
             // Verbs in gerund or present participle
-            case "VVG": return "VBG";
-            case "VVGK": return "VBG";
-            case "VBG": return "VBG";
-            case "VDG": return "VBG";
-            case "VHG": return "VBG";
+            { "VVG", "VBG" }, { "VVGK", "VBG" }, { "VBG", "VBG" }, { "VDG", "VBG" },
+            { "VHG", "VBG" },
 
             // Verbs in past participle
-            case "VVN": return "VBN";
-            case "VVNK": return "VBN";
-            case "VHN": return "VBN";
+            { "VVN", "VBN" }, { "VVNK", "VBN" }, { "VHN", "VBN" },
 
             // Verbs, non 3rd-person singular present
-            case "VBM": return "VBP";
+            { "VBM", "VBP" },
 
             // Verbs, 3rd-person present
-            case "VVZ": return "VBZ";
+            { "VVZ", "VBZ" },
 
             // Existential there
-            case "EX": return "EX";
+            { "EX", "EX" },
 
             // Adjectives
-            case "JJ": return "JJ";
-            case "JK": return "JJ";
+            { "JJ", "JJ" }, { "JK", "JJ" },
 
             // Comparative adjectives
-            case "JJR": return "JJR";
+            { "JJR", "JJR" },
 
             // Superlative adjectives
-            case "JJT": return "JJS";
+            { "JJT", "JJS" },
+    };
+
+    private static final byte PENN_FAMILIES[];      // Family bits for each Penn id
+    private static final TagTable PENN_IDS;         // Penn tag to Penn id
+    private static final TagTable CLAWS7_IDS;       // CLAWS7 tag to Penn id
+
+    static {
+        PENN_FAMILIES = new byte[PENN_TAGS.length];
+        for (int id = RB; id <= WRB; id++) { PENN_FAMILIES[id] = ADVERB; }
+        for (int id = VB; id <= VBN; id++) { PENN_FAMILIES[id] = VERB; }
+        for (int id = JJ; id <= JJS; id++) { PENN_FAMILIES[id] = ADJECTIVE; }
+        for (int id = NN; id <= NNPS; id++) { PENN_FAMILIES[id] = NOUN; }
+
+        PENN_IDS = new TagTable(PENN_TAGS.length);
+        for (int id = 1; id < PENN_TAGS.length; id++) { PENN_IDS.put(PENN_TAGS[id], (byte) id); }
+        CLAWS7_IDS = new TagTable(CLAWS7_TO_PENN.length);
+        for (String pair[] : CLAWS7_TO_PENN) { CLAWS7_IDS.put(pair[0], getPennTagId(pair[1])); }
+    }
 
-            // No match found or one does not exist
-            default: return "UNKNOWN";
-        }
+    /**
+     * Get the id of a Penn tag
+     * @param tag - the tag, in any case
+     * @return the id, or UNKNOWN_TAG if it is not a Penn tag
+     */
+    public static byte getPennTagId(String tag) {
+        return getPennTagId(tag, 0, tag.length());
+    }
 
+    /**
+     * Get the id of a Penn tag held in part of a text, without copying it
+     * @param text - the text
+     * @param start - the start of the tag
+     * @param end - the end of the tag (exclusive)
+     * @return the id, or UNKNOWN_TAG if it is not a Penn tag
+     */
+    public static byte getPennTagId(CharSequence text, int start, int end) {
+        return PENN_IDS.get(text, start, end);
     }
 
+    /**
+     * Get the Penn tag for an id
+     * @param id - the tag id
+     * @return the tag
+     */
+    public static String getPennTag(byte id) {
+        return id >= 0 && id < PENN_TAGS.length ? PENN_TAGS[id] : PENN_TAGS[UNKNOWN_TAG];
+    }
+
+    /**
+     * Get the id of the Penn tag related to a CLAWS7 tag
+     * @param tag - the CLAWS7 tag, in any case
+     * @return the Penn id, or UNKNOWN_TAG if there is no match
+     */
+    public static byte getPennTagIdFromCLAWS7(String tag) {
+        // No match found or one does not exist
+        return CLAWS7_IDS.get(tag, 0, tag.length());
+    }
+
+    /**
+     * Static method to return the Penn tag related to
+     * the more detailed CLAWS7 tag. Conversion in the opposite
+     * direction is impractical, as it would require implementing
+     * a CLAWS7 parser.
+     * @param tag - the CLAWS7 tag
+     * @return the appropriate Penn tag, or "UNKNOWN" if there is no match
+     */
+    public static String CLAWS7ToPenn(String tag) {
+        return PENN_TAGS[getPennTagIdFromCLAWS7(tag)];
+    }
+
+    /**
+     * Get the word families of a Penn tag id
+     * @param id - the Penn tag id
+     * @return the family bits (ADVERB, VERB, ADJECTIVE, NOUN), or 0 for none
+     */
+    public static int getFamilies(byte id) { return PENN_FAMILIES[id]; }
+
+    /**
+     * Check if a tag id is an allowed type
+     * @param id - the Penn tag id
+     * @return true if the POS is an allowed type
+     */
+    public static boolean isAllowedType(byte id) { return (PENN_FAMILIES[id] & ALLOWED_TYPES) != 0; }
+
+    /**
+     * Check if a tag id is part of the adverb family
+     * @param id - the Penn tag id
+     * @return true if this tag is part of the adverb family
+     */
+    public static boolean isAdverb(byte id) { return (PENN_FAMILIES[id] & ADVERB) != 0; }
+
+    /**
+     * Check if a tag id is part of the verb family
+     * @param id - the Penn tag id
+     * @return true if this tag is part of the verb family
+     */
+    public static boolean isVerb(byte id) { return (PENN_FAMILIES[id] & VERB) != 0; }
+
+    /**
+     * Check if a tag id is part of the adjective family
+     * @param id - the Penn tag id
+     * @return true if this tag is part of the adjective family
+     */
+    public static boolean isAdjective(byte id) { return (PENN_FAMILIES[id] & ADJECTIVE) != 0; }
+
+    /**
+     * Check if a tag id is part of the noun family
+     * @param id - the Penn tag id
+     * @return true if this tag is part of the noun family
+     */
+    public static boolean isNoun(byte id) { return (PENN_FAMILIES[id] & NOUN) != 0; }
+
     /**
      * Check if a part of speech is an allowed type
      * @param pos - the part of speech
      * @return true if the POS is an allowed type
      */
     public static boolean isAllowedType(String pos) {
-        return isAdverb(pos) || isVerb(pos)
-                || isAdjective(pos) || isNoun(pos);
+        return isAllowedType(getPennTagId(pos));
     }
 
     /**
@@ -217,42 +282,104 @@ public class POSTagConverter {
      * @param pos - the part of speech tag
      * @return true if this tag is part of the adverb family
      */
-    public static boolean isAdverb(String pos) {
-        String p = pos.toUpperCase();
-        return p.equals("RB") || p.equals("WRB")
-                || p.equals("RBR") || p.equals("RBS");
-    }
+    public static boolean isAdverb(String pos) { return isAdverb(getPennTagId(pos)); }
 
     /**
      * Check if this tag is part of the verb family
      * @param pos - the part of speech tag
      * @return true if this tag is part of the verb family
      */
-    public static boolean isVerb(String pos) {
-        String p = pos.toUpperCase();
-        return p.equals("VB") || p.equals("VBD")
-                || p.equals("VBG") || p.equals("VBN");
-    }
+    public static boolean isVerb(String pos) { return isVerb(getPennTagId(pos)); }
 
     /**
      * Check if this tag is part of the adjective family
      * @param pos - the part of speech tag
      * @return true if this tag is part of the adjective family
      */
-    public static boolean isAdjective(String pos) {
-        String p = pos.toUpperCase();
-        return p.equals("JJ") || p.equals("JJR") || p.equals("JJS");
-    }
+    public static boolean isAdjective(String pos) { return isAdjective(getPennTagId(pos)); }
 
     /**
      * Check if this tag is part of the noun family
      * @param pos - the part of speech tag
      * @return true if this tag is part of the noun family
      */
-    public static boolean isNoun(String pos) {
-        String p = pos.toUpperCase();
-        return p.equals("NN") || p.equals("NNS")
-                || p.equals("NNP") || p.equals("NNPS");
+    public static boolean isNoun(String pos) { return isNoun(getPennTagId(pos)); }
+
+    /**
+     * Case-insensitive open-addressing table of interned tags to ids
+     */
+    private static final class TagTable {
+
+        private final String keys[];        // Upper case tags (null = empty slot)
+        private final byte ids[];           // Id for each slot
+        private final int mask;
+
+        /**
+         * Create a table
+         * @param tags - the number of tags it will hold
+         */
+        TagTable(int tags) {
+            int capacity = Integer.highestOneBit(Math.max(2, tags) * 4 - 1);
+            keys = new String[capacity];
+            ids = new byte[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * Intern a tag
+         * @param tag - the tag
+         * @param id - its id
+         */
+        void put(String tag, byte id) {
+            String key = tag.toUpperCase();
+            int i = hash(key, 0, key.length()) & mask;
+            while (keys[i] != null && !keys[i].equals(key)) { i = (i + 1) & mask; }
+            keys[i] = key;
+            ids[i] = id;
+        }
+
+        /**
+         * Look up a tag held in part of a text
+         * @param text - the text
+         * @param start - the start of the tag
+         * @param end - the end of the tag (exclusive)
+         * @return the id, or UNKNOWN_TAG if the tag is not in the table
+         */
+        byte get(CharSequence text, int start, int end) {
+            for (int i = hash(text, start, end) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (matches(keys[i], text, start, end)) { return ids[i]; }
+            }
+            return UNKNOWN_TAG;
+        }
+
+        /**
+         * Case-insensitive hash of part of a text
+         * @param text - the text
+         * @param start - the start of the range
+         * @param end - the end of the range (exclusive)
+         * @return the hash
+         */
+        private static int hash(CharSequence text, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) { h = 31 * h + Character.toUpperCase(text.charAt(i)); }
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Check whether part of a text is a key, ignoring case
+         * @param key - the upper case key
+         * @param text - the text
+         * @param start - the start of the range
+         * @param end - the end of the range (exclusive)
+         * @return true if they match
+         */
+        private static boolean matches(String key, CharSequence text, int start, int end) {
+            if (key.length() != end - start) { return false; }
+            for (int i = 0; i < key.length(); i++) {
+                if (Character.toUpperCase(text.charAt(start + i)) != key.charAt(i)) { return false; }
+            }
+            return true;
+        }
     }
 
 }
@@ -3,21 +3,44 @@ package assets.general;
 import assets.gui.SCGUI;
 import edu.stanford.nlp.tagger.maxent.MaxentTagger;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Class to handle integration with the Stanford part of speech
  * tagger, as well as conversions between Penn and CLAWS7 tagsets.
  *
+ * A MaxentTagger must not be used by two threads at once, so each
+ * call borrows one from a pool of idle taggers. The pool starts with a
+ * single tagger; setTaggingThreads() loads more, and batches are then
+ * tagged in parallel, one tagger per worker thread. Tagged sentences
+ * are cached by their text, so every component sharing this tagger
+ * only pays to tag a sentence once.
+ *
  * Written for the StyleCheck program by Alex Welton.
  *
  */
 public class POSTagger {
 
-    // Threshold for a "too big" sentence
+    // Threshold for a "too big" sentence, in words; longer ones are tagged in pieces
     private static final int MAX_SENTENCE_LENGTH = 512;
 
+    // Words of context tagged either side of each piece but kept by its neighbour
+    private static final int OVERLAP_WORDS = 8;
+
+    // Smallest piece to retry in if tagging runs out of memory
+    private static final int MIN_PIECE_WORDS = 16;
+
+    // Punctuation ending a clause, where a long sentence is best split
+    private static final String CLAUSE_DELIMS = ",;:)\u2013\u2014";
+
     // Relative path to the tagger model
     private static final String MODEL
             = "src/external/stanford-postagger-2014-01-04/models/english-bidirectional-distsim.tagger";
@@ -27,49 +50,487 @@ public class POSTagger {
     public static final int PENN = 0;
     private static final int CLAWS7 = 1;
 
-    private final MaxentTagger tagger;
+    // Separates each word from its tag in the tagger output
+    private static final char TAG_DELIM = '_';
+
+    // Tagging threads for the editor; each one holds its own copy of the model
+    public static final int DEFAULT_TAGGING_THREADS
+            = Math.min(2, Runtime.getRuntime().availableProcessors());
+
+    // Batch pieces per tagging thread, so uneven sentences balance out
+    private static final int PIECES_PER_THREAD = 4;
+
+    private final LinkedBlockingQueue<MaxentTagger> idleTaggers;   // Taggers not in use
+    private int taggerCount;                                        // Taggers loaded
+    private volatile ExecutorService taggingExecutor;              // Null when tagging serially
+    private volatile int taggingThreads;
+    private final TaggedSentenceCache cache;                        // Shared by all callers
 
     /**
      * Constructor initializes POS tagger with default model.
      */
     public POSTagger() {
-        tagger = new MaxentTagger(MODEL);
+        idleTaggers = new LinkedBlockingQueue<>();
+        idleTaggers.add(new MaxentTagger(MODEL));
+        taggerCount = 1;
+        taggingThreads = 1;
+        cache = new TaggedSentenceCache();
+    }
+
+    /**
+     * Set the number of threads used to tag batches, loading a tagger
+     * model for each one that does not have one yet (which takes a few
+     * seconds and a copy of the model in memory per tagger). Taggers
+     * already loaded are kept.
+     * @param threads - the thread count (1 or less tags serially)
+     */
+    public synchronized void setTaggingThreads(int threads) {
+        while (taggerCount < threads) {
+            idleTaggers.add(new MaxentTagger(MODEL));
+            taggerCount++;
+        }
+        if (taggingExecutor != null) {
+            taggingExecutor.shutdown();
+        }
+        taggingExecutor = threads > 1 ? Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "StyleCheck-tagging");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        taggingThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Take an idle tagger, waiting for one if they are all in use. An
+     * interrupt does not stop the wait, but is passed on afterwards.
+     * @return the tagger, to be returned with idleTaggers.add()
+     */
+    private MaxentTagger borrowTagger() {
+        MaxentTagger tagger = idleTaggers.poll();
+        boolean interrupted = false;
+        while (tagger == null) {
+            try {
+                tagger = idleTaggers.take();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) { Thread.currentThread().interrupt(); }
+        return tagger;
     }
 
     /**
      * Return a sentence with POS tags.
      * @param sentence - the sentence to tag
-     * @return the tagged sentence
+     * @return the tagged sentence, or null if the tagger ran out of memory
      */
     String getTaggedSentence(String sentence) {
-        String taggedSentence = "";
+        String taggedSentence = null;
+        MaxentTagger tagger = borrowTagger();
         try {
             taggedSentence = tagger.tagString(sentence);
         } catch (OutOfMemoryError e) {
             if (SCGUI.DEBUG) {
                 System.out.println("Heap Space Exceeded: " + e.getMessage());
             }
+        } finally {
+            idleTaggers.add(tagger);
         }
         return taggedSentence;
     }
 
     /**
-     * Get the tagged words from an input sentence
+     * Tag a batch of sentences. With more than one tagging thread the
+     * batch is split into contiguous pieces that are tagged in parallel.
+     * If the calling thread is interrupted, tagging stops and only the
+     * sentences tagged so far are returned, with the interrupt kept set.
+     * @param sentences - the sentences to tag
+     * @return the tagged sentences, in the same order
+     */
+    public List<TaggedSentence> tagSentences(List<String> sentences) {
+        ExecutorService executor = taggingExecutor;
+        if (executor == null || sentences.size() < 2) {
+            return tagSerially(sentences);
+        }
+
+        int pieces = Math.min(sentences.size(), taggingThreads * PIECES_PER_THREAD);
+        List<Future<List<TaggedSentence>>> futures = new ArrayList<>(pieces);
+        for (int piece = 0; piece < pieces; piece++) {
+            List<String> part = sentences.subList(piece * sentences.size() / pieces,
+                    (piece + 1) * sentences.size() / pieces);
+            futures.add(executor.submit(() -> tagSerially(part)));
+        }
+
+        // Collect in order, stopping the remaining pieces on an interrupt
+        List<TaggedSentence> tagged = new ArrayList<>(sentences.size());
+        for (Future<List<TaggedSentence>> future : futures) {
+            try {
+                tagged.addAll(future.get());
+            } catch (InterruptedException e) {
+                for (Future<List<TaggedSentence>> unfinished : futures) { unfinished.cancel(true); }
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return tagged;
+    }
+
+    /**
+     * Tag a batch of sentences on the calling thread, stopping early if
+     * it is interrupted
+     * @param sentences - the sentences to tag
+     * @return the tagged sentences, in the same order
+     */
+    private List<TaggedSentence> tagSerially(List<String> sentences) {
+        List<TaggedSentence> tagged = new ArrayList<>(sentences.size());
+        for (String sentence : sentences) {
+            if (Thread.currentThread().isInterrupted()) { break; }
+            tagged.add(tagSentence(sentence));
+        }
+        return tagged;
+    }
+
+    /**
+     * Tag a sentence into token offsets and tag ids. Punctuation marks
+     * are left out.
+     * @param sentence - the sentence to tag
+     * @return the tagged sentence
+     */
+    public TaggedSentence tagSentence(String sentence) {
+        if (sentence.trim().isEmpty()) {
+            return parseTaggedSentence(sentence, "");
+        }
+        TaggedSentence tagged = cache.get(sentence);
+        if (tagged == null) {
+            tagged = tagBounded(sentence, MAX_SENTENCE_LENGTH);
+
+            // Words left untagged for lack of memory are retried next time
+            if (tagged.isComplete()) { cache.put(tagged); }
+        }
+        return tagged;
+    }
+
+    /**
+     * Tag a sentence of at most maxWords words in one go, or a longer one
+     * in overlapping pieces. If the tagger runs out of memory the
+     * sentence is retried in smaller pieces, and if even the smallest
+     * pieces fail its words are kept with UNKNOWN_TAG, so no text is
+     * dropped, and the result is marked incomplete.
      * @param sentence - the sentence to tag
-     * @return a LinkedList of tagged words
+     * @param maxWords - the most words to tag at once
+     * @return the tagged sentence
      */
-    LinkedList<String> getTaggedWords(String sentence) {
-        return new LinkedList<>(Arrays.asList(getTaggedSentence(sentence).split(" ")));
+    private TaggedSentence tagBounded(String sentence, int maxWords) {
+        int wordStarts[] = null;
+
+        // A sentence with fewer characters than this cannot have too many words
+        if (sentence.length() >= 2 * maxWords) {
+            wordStarts = getWordStarts(sentence);
+        }
+        if (wordStarts == null || wordStarts.length <= maxWords) {
+            String tagged = getTaggedSentence(sentence);
+            if (tagged != null) { return parseTaggedSentence(sentence, tagged); }
+
+            if (wordStarts == null) { wordStarts = getWordStarts(sentence); }
+            maxWords = Math.min(maxWords, wordStarts.length) / 2;
+            if (maxWords < MIN_PIECE_WORDS) {
+                System.err.println("Uh oh! Could not tag a sentence of " + wordStarts.length
+                        + " words, so its words are left untagged.");
+                return getUntagged(sentence, wordStarts);
+            }
+        }
+        return tagInPieces(sentence, wordStarts, maxWords);
     }
 
     /**
-     * Parse the tag from a word and return an array
-     * consisting of [word][tag]
-     * @param word - the word to parse a tag from
-     * @return the parsed word and tag
+     * Tag a long sentence in pieces of at most maxWords words. Each piece
+     * is a core, ending at a clause break where there is one, plus a few
+     * words of context either side; only the tokens in the core are kept,
+     * with their offsets moved back into the whole sentence.
+     * @param sentence - the sentence to tag
+     * @param wordStarts - the start of each word
+     * @param maxWords - the most words to tag at once
+     * @return the tagged sentence
      */
-    private String[] parseTag(String word) {
-        return word.trim().split("_");
+    private TaggedSentence tagInPieces(String sentence, int wordStarts[], int maxWords) {
+        int words = wordStarts.length;
+        int overlap = Math.min(OVERLAP_WORDS, maxWords / 4);
+        int coreWords = maxWords - 2 * overlap;
+
+        int starts[] = new int[words];
+        int ends[] = new int[words];
+        byte tags[] = new byte[words];
+        int size = 0;
+        boolean complete = true;
+
+        for (int core = 0; core < words; ) {
+            int coreEnd = Math.min(words, core + coreWords);
+            if (coreEnd < words) {
+                coreEnd = findClauseBreak(sentence, wordStarts, core + coreWords / 2, coreEnd);
+            }
+            int pieceStart = wordStarts[Math.max(0, core - overlap)];
+            int pieceEnd = getWordOffset(sentence, wordStarts, coreEnd + overlap);
+            int keepStart = wordStarts[core];
+            int keepEnd = getWordOffset(sentence, wordStarts, coreEnd);
+
+            TaggedSentence piece = tagBounded(sentence.substring(pieceStart, pieceEnd), maxWords);
+            complete &= piece.isComplete();
+            for (int token = 0; token < piece.size(); token++) {
+                int start = pieceStart + piece.getStart(token);
+                if (start < keepStart || start >= keepEnd) { continue; }
+                if (size == starts.length) {
+                    starts = Arrays.copyOf(starts, size * 2);
+                    ends = Arrays.copyOf(ends, size * 2);
+                    tags = Arrays.copyOf(tags, size * 2);
+                }
+                starts[size] = start;
+                ends[size] = pieceStart + piece.getEnd(token);
+                tags[size] = piece.getTag(token);
+                size++;
+            }
+            core = coreEnd;
+        }
+        return new TaggedSentence(sentence, Arrays.copyOf(starts, size),
+                Arrays.copyOf(ends, size), Arrays.copyOf(tags, size), size, complete);
+    }
+
+    /**
+     * Find the last word in a range that follows clause punctuation
+     * @param sentence - the sentence
+     * @param wordStarts - the start of each word
+     * @param low - the first word that may start the next piece
+     * @param high - the last word that may start the next piece
+     * @return the word to start the next piece at, or high if there is no clause break
+     */
+    private static int findClauseBreak(String sentence, int wordStarts[], int low, int high) {
+        for (int word = high; word > low; word--) {
+            int before = wordStarts[word] - 1;
+            while (before > 0 && Character.isWhitespace(sentence.charAt(before))) { before--; }
+            if (CLAUSE_DELIMS.indexOf(sentence.charAt(before)) >= 0) { return word; }
+        }
+        return high;
+    }
+
+    /**
+     * Get the offset a word starts at, or the sentence length past the last word
+     * @param sentence - the sentence
+     * @param wordStarts - the start of each word
+     * @param word - the word index
+     * @return the offset
+     */
+    private static int getWordOffset(String sentence, int wordStarts[], int word) {
+        return word < wordStarts.length ? wordStarts[word] : sentence.length();
+    }
+
+    /**
+     * Find the start of each whitespace-separated word
+     * @param sentence - the sentence
+     * @return the word start offsets
+     */
+    private static int[] getWordStarts(String sentence) {
+        int words = 0;
+        for (int i = 0; i < sentence.length(); i++) {
+            if (!Character.isWhitespace(sentence.charAt(i))
+                    && (i == 0 || Character.isWhitespace(sentence.charAt(i - 1)))) {
+                words++;
+            }
+        }
+        int wordStarts[] = new int[words];
+        words = 0;
+        for (int i = 0; i < sentence.length(); i++) {
+            if (!Character.isWhitespace(sentence.charAt(i))
+                    && (i == 0 || Character.isWhitespace(sentence.charAt(i - 1)))) {
+                wordStarts[words++] = i;
+            }
+        }
+        return wordStarts;
+    }
+
+    /**
+     * Keep the words of a sentence that could not be tagged, with UNKNOWN_TAG.
+     * Bare punctuation is dropped, as it is when the tagger's output is read.
+     * @param sentence - the sentence
+     * @param wordStarts - the start of each word
+     * @return the untagged sentence
+     */
+    private static TaggedSentence getUntagged(String sentence, int wordStarts[]) {
+        int starts[] = new int[wordStarts.length];
+        int ends[] = new int[wordStarts.length];
+        int size = 0;
+        for (int start : wordStarts) {
+            int end = start;
+            while (end < sentence.length() && !Character.isWhitespace(sentence.charAt(end))) { end++; }
+
+            // If this is a punctuation mark, currency symbol, number, etc., ignore it
+            if (end - start > 1 || Character.isLetterOrDigit(sentence.charAt(start))) {
+                starts[size] = start;
+                ends[size] = end;
+                size++;
+            }
+        }
+        if (size < wordStarts.length) {
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+        }
+        return new TaggedSentence(sentence, starts, ends, new byte[size], size, false);
+    }
+
+    /**
+     * Getter for the tagged sentence cache
+     * @return the cache
+     */
+    public TaggedSentenceCache getCache() { return cache; }
+
+    /**
+     * Read the tagger's "word_TAG word_TAG ..." output into token offsets
+     * in the source sentence. Each word is matched at the next
+     * non-whitespace character of the source; words the tokenizer has
+     * rewritten (brackets, quotes, dashes, ellipses, escaped slashes and
+     * asterisks, American spellings) are matched to the source characters
+     * they came from. A word that still doesn't match is looked for further
+     * on, so one unknown rewrite can't lose the rest of the sentence.
+     * @param sentence - the source sentence
+     * @param tagged - the tagger output for it
+     * @return the tagged sentence
+     */
+    static TaggedSentence parseTaggedSentence(String sentence, String tagged) {
+        int capacity = 1;
+        for (int i = 0; i < tagged.length(); i++) {
+            if (Character.isWhitespace(tagged.charAt(i))) { capacity++; }
+        }
+        int starts[] = new int[capacity];
+        int ends[] = new int[capacity];
+        byte tags[] = new byte[capacity];
+        int size = 0;
+
+        int cursor = 0;
+        int tokenStart = 0;
+        while (tokenStart < tagged.length()) {
+            int tokenEnd = tokenStart;
+            while (tokenEnd < tagged.length() && !Character.isWhitespace(tagged.charAt(tokenEnd))) {
+                tokenEnd++;
+            }
+            int split = tagged.lastIndexOf(TAG_DELIM, tokenEnd - 1);
+            if (split < tokenStart) { split = tokenEnd; }
+
+            // Find the word in the source
+            int start = cursor;
+            while (start < sentence.length() && Character.isWhitespace(sentence.charAt(start))) {
+                start++;
+            }
+            int end = matchWord(sentence, start, tagged, tokenStart, split, true);
+
+            // If the tokenizer rewrote the source in a way we don't know, skip ahead to the word
+            if (end == start) {
+                for (int next = start + 1; next < sentence.length(); next++) {
+                    int nextEnd = isWordBoundary(sentence, next)
+                            ? matchWord(sentence, next, tagged, tokenStart, split, false) : next;
+                    if (nextEnd > next) {
+                        start = next;
+                        end = nextEnd;
+                        break;
+                    }
+                }
+            }
+
+            if (end > start) {
+                cursor = end;
+
+                // If this is a punctuation mark, currency symbol, number, etc., ignore it
+                if (end - start > 1 || Character.isLetterOrDigit(sentence.charAt(start))) {
+                    starts[size] = start;
+                    ends[size] = end;
+                    tags[size] = split < tokenEnd
+                            ? POSTagConverter.getPennTagId(tagged, split + 1, tokenEnd)
+                            : POSTagConverter.UNKNOWN_TAG;
+                    size++;
+                }
+            }
+            tokenStart = tokenEnd + 1;
+        }
+        if (size < capacity) {
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            tags = Arrays.copyOf(tags, size);
+        }
+        return new TaggedSentence(sentence, starts, ends, tags, size);
+    }
+
+    /**
+     * Match a word from the tagger output to the source text
+     * @param sentence - the source sentence
+     * @param start - where the word should start in the source
+     * @param tagged - the tagger output
+     * @param wordStart - the start of the word in the output
+     * @param wordEnd - the end of the word in the output (exclusive)
+     * @param respelled - whether the word may be a respelling of the source word
+     * @return the end of the word in the source, or start if it is not there
+     */
+    private static int matchWord(String sentence, int start, String tagged,
+                                 int wordStart, int wordEnd, boolean respelled) {
+        int length = wordEnd - wordStart;
+        if (start >= sentence.length()) { return start; }
+        if (sentence.regionMatches(start, tagged, wordStart, length)) { return start + length; }
+
+        // Slashes and asterisks are escaped with a backslash
+        String word = tagged.substring(wordStart, wordEnd);
+        if (word.indexOf('\\') >= 0) {
+            String unescaped = word.replace("\\/", "/").replace("\\*", "*");
+            if (sentence.startsWith(unescaped, start)) { return start + unescaped.length(); }
+        }
+
+        // Escaped brackets and quotes, and ASCII dashes and ellipses, stand for one source character
+        char c = sentence.charAt(start);
+        switch (word) {
+            case "-LRB-": return c == '(' ? start + 1 : start;
+            case "-RRB-": return c == ')' ? start + 1 : start;
+            case "-LSB-": return c == '[' ? start + 1 : start;
+            case "-RSB-": return c == ']' ? start + 1 : start;
+            case "-LCB-": return c == '{' ? start + 1 : start;
+            case "-RCB-": return c == '}' ? start + 1 : start;
+            case "``":
+            case "''":
+                return c == '"' || c == '\u201C' || c == '\u201D' ? start + 1 : start;
+            case "`":
+            case "'":
+                return c == '\'' || c == '\u2018' || c == '\u2019' ? start + 1 : start;
+            case "--":
+                return c == '\u2013' || c == '\u2014' ? start + 1 : start;
+            case "...":
+                return c == '\u2026' ? start + 1 : start;
+            default:
+                break;
+        }
+
+        // A respelled word covers the source word it came from
+        if (respelled && Character.isLetterOrDigit(c)) {
+            int end = start;
+            while (end < sentence.length() && Character.isLetterOrDigit(sentence.charAt(end))) {
+                end++;
+            }
+            return end;
+        }
+        return start;
+    }
+
+    /**
+     * Check whether a source offset could start a token, i.e. it does not
+     * fall inside a run of letters and digits
+     * @param sentence - the source sentence
+     * @param offset - the offset
+     * @return true if a token may start there
+     */
+    private static boolean isWordBoundary(String sentence, int offset) {
+        char c = sentence.charAt(offset);
+        return !Character.isWhitespace(c) && (!Character.isLetterOrDigit(c)
+                || !Character.isLetterOrDigit(sentence.charAt(offset - 1)));
     }
 
     /**
@@ -79,18 +540,10 @@ public class POSTagger {
      * @return the LinkedList of word and tag
      */
     public LinkedList<String[]> getSentenceWordsAndTags(String sentence) {
-        Iterable<String> taggedWords = getTaggedWords(sentence);
+        TaggedSentence tagged = tagSentence(sentence);
         LinkedList<String[]> wordsAndTags = new LinkedList<>();
-        for (String tagged : taggedWords) {
-            String wordPlusTag[] = parseTag(tagged);
-
-            // If this is a punctuation mark, currency symbol, number, etc., ignore it
-            if (!wordPlusTag[0].isEmpty()) {
-                if (wordPlusTag[0].length() > 1
-                        || Character.isLetterOrDigit(wordPlusTag[0].charAt(0))) {
-                    wordsAndTags.add(wordPlusTag);
-                }
-            }
+        for (int token = 0; token < tagged.size(); token++) {
+            wordsAndTags.add(tagged.getWordAndTag(token));
         }
         return wordsAndTags;
     }
@@ -103,9 +556,10 @@ public class POSTagger {
         System.out.println(tagger.getTaggedSentence("This is a sentence."));
         System.out.println();
 
-        Iterable<String[]> wordTagList = tagger.getSentenceWordsAndTags("This is a sentence.");
-        for (String[] wordTag : wordTagList) {
-            System.out.println("Word: " + wordTag[0] + "  ||  Penn Tag: " + wordTag[1]);
+        TaggedSentence tagged = tagger.tagSentence("This is a sentence.");
+        for (int token = 0; token < tagged.size(); token++) {
+            System.out.println("Word: " + tagged.getWord(token) + " (" + tagged.getStart(token)
+                    + ")  ||  Penn Tag: " + POSTagConverter.getPennTag(tagged.getTag(token)));
         }
     }
 
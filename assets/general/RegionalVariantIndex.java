@@ -0,0 +1,98 @@
+package assets.general;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Precomputed index of British spellings of American dictionary words.
+ * Each dictionary word is run through a fixed set of US to UK spelling
+ * rules once, when the lexical snapshot is compiled, and the variants are
+ * stored there as a CompactDictionary. Checking whether an unknown word is
+ * just a regional variant is then a single lookup, with nothing computed
+ * at startup.
+ *
+ * Suffix rules only apply to the end of a word (center to centre),
+ * infix rules anywhere (colorful to colourful), and stem rules only
+ * after the first few letters (realized to realised, but not seize or
+ * action). The rules are deliberately narrow
+ * so that misspellings like "watre" are not excused as variants.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public class RegionalVariantIndex {
+
+    // American and British forms of word endings
+    private static final String SUFFIX_VARIANTS[][] = {
+            { "center", "centre" }, { "theater", "theatre" }, { "meter", "metre" },
+            { "liter", "litre" }, { "iber", "ibre" }, { "omber", "ombre" },
+            { "aber", "abre" }, { "uster", "ustre" }, { "ecter", "ectre" },
+            { "alog", "alogue" }, { "olog", "ologue" }, { "agog", "agogue" },
+            { "fense", "fence" }, { "cense", "cence" }, { "etense", "etence" } };
+
+    // American and British forms found anywhere in a word
+    private static final String INFIX_VARIANTS[][] = {
+            { "olor", "olour" }, { "onor", "onour" }, { "avor", "avour" },
+            { "abor", "abour" }, { "ghbor", "ghbour" }, { "arbor", "arbour" },
+            { "umor", "umour" }, { "igor", "igour" }, { "avior", "aviour" },
+            { "odor", "odour" }, { "apor", "apour" } };
+
+    // American and British forms found after the start of a word's stem
+    private static final String STEM_VARIANTS[][] = {
+            { "ize", "ise" }, { "izi", "isi" }, { "iza", "isa" },
+            { "yze", "yse" }, { "yzi", "ysi" }, { "ction", "xion" } };
+
+    // Letters that must precede a stem rule match
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private final CompactDictionary variants;     // British forms of dictionary words
+
+    /**
+     * Wrap a compiled set of British variants (see build())
+     * @param v - the variants, compiled as a CompactDictionary
+     */
+    public RegionalVariantIndex(CompactDictionary v) {
+        variants = v;
+    }
+
+    /**
+     * Compute the British variants of a dictionary and compile them
+     * @param dictionary - the (lowercase, American) dictionary
+     * @return the variants in the CompactDictionary layout, positioned at 0
+     */
+    public static ByteBuffer build(CompactDictionary dictionary) {
+        Set<String> british = new HashSet<>();
+        for (String word : dictionary.getWords()) {
+            for (String rule[] : SUFFIX_VARIANTS) {
+                if (word.endsWith(rule[0])) {
+                    british.add(word.substring(0, word.length() - rule[0].length()) + rule[1]);
+                }
+            }
+            for (String rule[] : INFIX_VARIANTS) {
+                if (word.contains(rule[0])) {
+                    british.add(word.replace(rule[0], rule[1]));
+                }
+            }
+            for (String rule[] : STEM_VARIANTS) {
+                if (word.indexOf(rule[0], MIN_STEM_LENGTH) >= 0) {
+                    british.add(word.replace(rule[0], rule[1]));
+                }
+            }
+        }
+
+        // Variants that are themselves dictionary words need no entry
+        british.removeIf(dictionary::contains);
+        return CompactDictionary.build(british);
+    }
+
+    /**
+     * Check whether a word is the British spelling of a dictionary word
+     * @param word - the lowercase word
+     * @return true if the word is a known British variant
+     */
+    public boolean isBritishVariant(String word) {
+        return variants.contains(word);
+    }
+
+}
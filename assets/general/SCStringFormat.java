@@ -75,11 +75,11 @@ public final class SCStringFormat {
      * @param text - the text to search
      * @return the list of words
      */
-    public static LinkedList<ScoredWord> getAllWordsAndPositions(String text) {
+    public static LinkedList<ScoredWord> getAllWordsAndPositions(CharSequence text) {
         LinkedList<ScoredWord> wordList = new LinkedList<>();
 
         // Get start position of first word
-        int pos = getNextWordStart(text, -1);
+        int pos = text.length() > 0 ? getNextWordStart(text, -1) : 0;
 
         if (SCGUI.DEBUG_FINE) {
             System.out.println("Starting word position: " + pos);
@@ -90,7 +90,8 @@ public final class SCStringFormat {
         while (pos < text.length()) {
             currentEnd = getEndOfCurrentWord(text, pos);
             if (currentEnd < 0) { break; }
-            wordList.add(new ScoredWord(text.substring(pos, currentEnd), pos));
+            wordList.add(new ScoredWord(text.subSequence(pos, currentEnd).toString(), pos));
+            if (currentEnd + 1 >= text.length()) { break; }
             pos = getNextWordStart(text, currentEnd);
         }
 
@@ -0,0 +1,144 @@
+package assets.general;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, thread-safe cache of per-sentence results, keyed by a 64-bit
+ * FNV-1a hash of the sentence text, with hit, miss and eviction counts.
+ *
+ * The least recently used sentences are dropped once MAX_SENTENCES
+ * is reached.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public class SentenceCache<V> {
+
+    // Enough for a long manuscript
+    public static final int MAX_SENTENCES = 16384;
+
+    private final LinkedHashMap<Long, V> results;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create an empty cache
+     */
+    public SentenceCache() {
+        results = new LinkedHashMap<Long, V>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                if (size() > MAX_SENTENCES) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the cached result for a sentence
+     * @param key - the sentence key
+     * @return the result, or null if the sentence is not cached
+     */
+    public V get(long key) {
+        return get(key, null);
+    }
+
+    /**
+     * Get the cached result for a sentence, if it passes a check (e.g.
+     * that it was stored for the same text, in case of a hash collision)
+     * @param key - the sentence key
+     * @param check - the check, or null to accept any cached result
+     * @return the result, or null if the sentence is not cached
+     */
+    public synchronized V get(long key, Predicate<? super V> check) {
+        V result = results.get(key);
+        if (result == null || (check != null && !check.test(result))) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return result;
+    }
+
+    /**
+     * Cache the result for a sentence
+     * @param key - the sentence key
+     * @param result - the result
+     */
+    public synchronized void put(long key, V result) {
+        results.put(key, result);
+    }
+
+    /**
+     * Drop every cached result and reset the counters
+     */
+    public synchronized void clear() {
+        results.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * Get the number of lookups served from the cache
+     * @return the hit count
+     */
+    public synchronized long getHits() { return hits; }
+
+    /**
+     * Get the number of lookups that missed
+     * @return the miss count
+     */
+    public synchronized long getMisses() { return misses; }
+
+    /**
+     * Get the number of sentences dropped to stay within MAX_SENTENCES
+     * @return the eviction count
+     */
+    public synchronized long getEvictions() { return evictions; }
+
+    /**
+     * Get the fraction of lookups that hit
+     * @return the hit rate, or 0 if there were no lookups
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Get the number of cached sentences
+     * @return the entry count
+     */
+    public synchronized int size() { return results.size(); }
+
+    /**
+     * 64-bit FNV-1a hash of a range of text
+     * @param text - the text
+     * @param start - the start of the range
+     * @param end - the end of the range (exclusive)
+     * @return the hash
+     */
+    public static long hash(CharSequence text, int start, int end) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = start; i < end; i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getClass().getSimpleName() + "[entries=" + size() + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions
+                + String.format(", hitRate=%.3f]", getHitRate());
+    }
+
+}
@@ -4,11 +4,70 @@ package assets.general;
  * Class to encapsulate the computation of relative
  * String distances (i.e. Levenshtein)
  *
+ * An instance holds reusable row buffers, so repeated calls allocate
+ * nothing. Instances are not thread-safe; use getLocalInstance() to
+ * get one confined to the current thread. The instance methods do not
+ * change case, so callers should pass pre-lowercased CharSequences.
+ *
+ * With transpositions enabled, distances follow the optimal string
+ * alignment (restricted Damerau-Levenshtein) definition, in which
+ * swapping two adjacent characters costs 1.
+ *
  * Written for the StyleCheck program by Alex Welton.
  *
  */
 public final class StringDistance {
 
+    // Longest pattern handled by the bit-parallel algorithm
+    public static final int MAX_BIT_PARALLEL_LENGTH = Long.SIZE;
+
+    // Characters with a bit-parallel match mask (others fall back to DP)
+    private static final int ASCII_SIZE = 128;
+    private static final int INITIAL_ROW_SIZE = 32;
+
+    // Per-thread engines for callers without their own instance
+    private static final ThreadLocal<StringDistance> LOCAL_INSTANCE
+            = ThreadLocal.withInitial(() -> new StringDistance(false));
+    private static final ThreadLocal<StringDistance> LOCAL_DAMERAU_INSTANCE
+            = ThreadLocal.withInitial(() -> new StringDistance(true));
+
+    private final boolean transpositions;   // True for Damerau (OSA) distance
+    private final long matchMasks[];        // Bit-parallel pattern masks
+    private int previousRow[];
+    private int currentRow[];
+    private int transposeRow[];
+
+    /**
+     * Create a new plain Levenshtein engine
+     */
+    public StringDistance() {
+        this(false);
+    }
+
+    /**
+     * Create a new engine
+     * @param damerau - if true, adjacent transpositions cost 1
+     */
+    public StringDistance(boolean damerau) {
+        transpositions = damerau;
+        matchMasks = new long[ASCII_SIZE];
+        previousRow = new int[INITIAL_ROW_SIZE];
+        currentRow = new int[INITIAL_ROW_SIZE];
+        transposeRow = new int[INITIAL_ROW_SIZE];
+    }
+
+    /**
+     * Get the Levenshtein engine confined to the current thread
+     * @return the engine
+     */
+    public static StringDistance getLocalInstance() { return LOCAL_INSTANCE.get(); }
+
+    /**
+     * Get the Damerau (OSA) engine confined to the current thread
+     * @return the engine
+     */
+    public static StringDistance getLocalDamerauInstance() { return LOCAL_DAMERAU_INSTANCE.get(); }
+
     /**
      * Return the Levenshtein distance (computed dynamically for speed)
      * between two Strings
@@ -19,51 +78,212 @@ public final class StringDistance {
     public static int levenshtein(String word1, String word2) {
 
         // Convert to all lowercase for dictionary matching
-        String first = word1.toLowerCase();
-        String second = word2.toLowerCase();
+        return getLocalInstance().distance(word1.toLowerCase(), word2.toLowerCase());
+    }
 
-        // Initialize matrix
-        int matrix[][] = new int[first.length() + 1][second.length() + 1];
+    /**
+     * Full edit distance using two rows (three with transpositions)
+     * @param word1 - the first word
+     * @param word2 - the second word
+     * @return the integer distance between the words
+     */
+    public int distance(CharSequence word1, CharSequence word2) {
 
-        // Dropping/inserting all characters in edge rows
-        for (int i = 0; i <= first.length(); i++) { matrix[i][0] = i; }
-        for (int j = 0; j <= second.length(); j++) { matrix[0][j] = j; }
+        // Keep the rows over the shorter word
+        CharSequence first = word1.length() >= word2.length() ? word1 : word2;
+        CharSequence second = first == word1 ? word2 : word1;
+        int m = first.length();
+        int n = second.length();
+        if (n == 0) { return m; }
+        ensureRowSize(n + 1);
 
-        // Go through and compute the matrix
-        for (int j = 1; j <= second.length(); j++) {
-            for (int i = 1; i <= first.length(); i++) {
+        int prev[] = previousRow;
+        int curr[] = currentRow;
+        int trans[] = transposeRow;
 
-                // If there is a match
-                if (first.charAt(i - 1) == second.charAt(j - 1)) {
-                    matrix[i][j] = matrix[i - 1][j - 1];
+        // Dropping/inserting all characters in the edge row
+        for (int j = 0; j <= n; j++) { prev[j] = j; }
+
+        // Go through and compute the matrix one row at a time
+        for (int i = 1; i <= m; i++) {
+            char c = first.charAt(i - 1);
+            curr[0] = i;
+            for (int j = 1; j <= n; j++) {
+                int substitution = prev[j - 1] + (c == second.charAt(j - 1) ? 0 : 1);
+                int value = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), substitution);
+                if (transpositions && i > 1 && j > 1
+                        && c == second.charAt(j - 2) && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    value = Math.min(value, trans[j - 2] + 1);
                 }
+                curr[j] = value;
+            }
+
+            // Rotate rows: the oldest becomes the next current row
+            int oldest[] = trans;
+            trans = prev;
+            prev = curr;
+            curr = oldest;
+        }
+
+        return prev[n];
+    }
+
+    /**
+     * Edit distance restricted to a diagonal band of width 2k + 1. Gives
+     * up as soon as every cell in a row exceeds k.
+     * @param word1 - the first word
+     * @param word2 - the second word
+     * @param k - the largest distance of interest
+     * @return the distance if it is at most k, otherwise k + 1
+     */
+    public int boundedDistance(CharSequence word1, CharSequence word2, int k) {
+        CharSequence first = word1.length() >= word2.length() ? word1 : word2;
+        CharSequence second = first == word1 ? word2 : word1;
+        int m = first.length();
+        int n = second.length();
+        int tooFar = k + 1;
+        if (k < 0 || m - n > k) { return tooFar; }
+        if (n == 0) { return m; }
+        ensureRowSize(n + 2);
 
-                // No match - get minimum of insertion, deletion, substitution
-                else {
-                    int deletion = matrix[i - 1][j] + 1;
-                    int insertion = matrix[i][j - 1] + 1;
-                    int substitution = matrix[i - 1][j - 1] + 1;
+        int prev[] = previousRow;
+        int curr[] = currentRow;
+        int trans[] = transposeRow;
 
-                    matrix[i][j] = Math.min(Math.min(deletion, insertion), substitution);
+        // Edge row, with a sentinel just past the band
+        for (int j = 0; j <= Math.min(n, k); j++) { prev[j] = j; }
+        if (k + 1 <= n) { prev[k + 1] = tooFar; }
+
+        for (int i = 1; i <= m; i++) {
+            char c = first.charAt(i - 1);
+            int low = Math.max(1, i - k);
+            int high = Math.min(n, i + k);
+
+            // Column 0 and the sentinel before the band
+            curr[0] = i <= k ? i : tooFar;
+            if (low > 1) { curr[low - 1] = tooFar; }
+            int rowMin = low == 1 ? curr[0] : tooFar;
+
+            for (int j = low; j <= high; j++) {
+                int substitution = prev[j - 1] + (c == second.charAt(j - 1) ? 0 : 1);
+                int value = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), substitution);
+                if (transpositions && i > 1 && j > 1
+                        && c == second.charAt(j - 2) && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    value = Math.min(value, trans[j - 2] + 1);
                 }
+                value = Math.min(value, tooFar);
+                curr[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+
+            // Sentinel just past the band, then check for early exit
+            if (high + 1 <= n) { curr[high + 1] = tooFar; }
+            if (rowMin > k) { return tooFar; }
+
+            int oldest[] = trans;
+            trans = prev;
+            prev = curr;
+            curr = oldest;
+        }
+
+        return Math.min(prev[n], tooFar);
+    }
+
+    /**
+     * Edit distance using the Myers/Hyyro bit-vector algorithm, which
+     * processes a whole column per machine word. Used when the shorter
+     * word has at most 64 characters, all ASCII; otherwise falls back
+     * to the row-based computation.
+     * @param word1 - the first word
+     * @param word2 - the second word
+     * @return the integer distance between the words
+     */
+    public int bitParallelDistance(CharSequence word1, CharSequence word2) {
+        CharSequence text = word1.length() >= word2.length() ? word1 : word2;
+        CharSequence pattern = text == word1 ? word2 : word1;
+        int m = pattern.length();
+        if (m == 0) { return text.length(); }
+        if (m > MAX_BIT_PARALLEL_LENGTH) { return distance(word1, word2); }
+
+        // Build the match mask for each pattern character
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(i);
+            if (c >= ASCII_SIZE) {
+                clearMatchMasks(pattern, i);
+                return distance(word1, word2);
+            }
+            matchMasks[c] |= 1L << i;
+        }
+
+        long lastBit = 1L << (m - 1);
+        long positive = -1L;
+        long negative = 0L;
+        long diagonal = 0L;
+        long previousMatch = 0L;
+        int score = m;
+
+        for (int j = 0; j < text.length(); j++) {
+            char c = text.charAt(j);
+            long match = c < ASCII_SIZE ? matchMasks[c] : 0L;
+
+            // Adjacent transposition term (Hyyro 2003)
+            long transposed = transpositions
+                    ? (((~diagonal) & match) << 1) & previousMatch : 0L;
+            diagonal = (((match & positive) + positive) ^ positive)
+                    | match | negative | transposed;
+
+            long horizontalPositive = negative | ~(diagonal | positive);
+            long horizontalNegative = positive & diagonal;
+            if ((horizontalPositive & lastBit) != 0) {
+                score++;
+            } else if ((horizontalNegative & lastBit) != 0) {
+                score--;
             }
+
+            horizontalPositive = (horizontalPositive << 1) | 1L;
+            horizontalNegative = horizontalNegative << 1;
+            positive = horizontalNegative | ~(diagonal | horizontalPositive);
+            negative = horizontalPositive & diagonal;
+            previousMatch = match;
+        }
+
+        clearMatchMasks(pattern, m);
+        return score;
+    }
+
+    /**
+     * Reset the match masks touched by a pattern
+     * @param pattern - the pattern
+     * @param end - the number of leading characters that were set
+     */
+    private void clearMatchMasks(CharSequence pattern, int end) {
+        for (int i = 0; i < end; i++) {
+            matchMasks[pattern.charAt(i)] = 0L;
         }
+    }
 
-        // Uncomment to print matrix for debugging
-//        for (int i = 0; i <= first.length(); i++) {
-//            String print = "";
-//            for (int j = 0; j <= second.length(); j++) {
-//                print += matrix[i][j] + " ";
-//            }
-//            System.out.println(print);
-//        }
-
-        // Bottom-right corner of the matrix has distance
-        return matrix[first.length()][second.length()];
+    /**
+     * Grow the row buffers if needed
+     * @param size - the required row size
+     */
+    private void ensureRowSize(int size) {
+        if (previousRow.length < size) {
+            int capacity = Math.max(size, previousRow.length * 2);
+            previousRow = new int[capacity];
+            currentRow = new int[capacity];
+            transposeRow = new int[capacity];
+        }
     }
 
+    /**
+     * Check whether this engine counts adjacent transpositions
+     * @return true for Damerau (OSA) distance
+     */
+    public boolean usesTranspositions() { return transpositions; }
+
     public static void main(String args[]) {
         System.out.println(levenshtein("satement", "statement"));
+        System.out.println(getLocalDamerauInstance().bitParallelDistance("recieve", "receive"));
     }
 
 }
@@ -0,0 +1,184 @@
+package assets.general;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Candidate index using the SymSpell "symmetric delete" approach.
+ * Every word's prefix is expanded into all strings reachable by up to
+ * k deletions at load time; a query expands its own prefix the same
+ * way and only verifies words that share a delete with it.
+ *
+ * To keep memory bounded for a full dictionary the deletes are not
+ * stored as Strings. Each (delete hash, word id) pair is packed into a
+ * long and the whole table is a single sorted long array searched by
+ * binary search. Hash collisions only add candidates, which are then
+ * rejected by the exact distance check.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public class SymSpellIndex implements WordCandidateIndex {
+
+    // Only this many leading characters are expanded into deletes
+    public static final int PREFIX_LENGTH = 7;
+
+    private static final long ID_MASK = 0xFFFFFFFFL;
+
+    private final int maxIndexedDistance;   // k used when building deletes
+    private final String words[];           // Word for each id
+    private final long deletes[];           // Sorted (hash << 32 | id) entries
+    private final List<String> addedWords;  // Words added after the build
+
+    /**
+     * Build a new SymSpell index over the given words
+     * @param wordList - the (lowercase) words to index
+     * @param maxDistance - the largest edit distance queries may use
+     */
+    public SymSpellIndex(Collection<String> wordList, int maxDistance) {
+        maxIndexedDistance = maxDistance;
+        words = wordList.toArray(new String[wordList.size()]);
+        addedWords = new ArrayList<>();
+
+        // Expand every word into its packed deletes
+        long entries[] = new long[words.length * 8];
+        int count = 0;
+        for (int id = 0; id < words.length; id++) {
+            for (String delete : getDeletes(getPrefix(words[id]), maxIndexedDistance)) {
+                if (count == entries.length) {
+                    entries = Arrays.copyOf(entries, entries.length * 2);
+                }
+                entries[count++] = pack(delete.hashCode(), id);
+            }
+        }
+
+        deletes = Arrays.copyOf(entries, count);
+        Arrays.sort(deletes);
+    }
+
+    /**
+     * Words added after the build are kept in a small side list, since
+     * the packed table is immutable. Only user-added words end up here.
+     * @param word - the word to add
+     */
+    @Override
+    public void add(String word) {
+        addedWords.add(word);
+    }
+
+    @Override
+    public LinkedList<ScoredWord> getClosestWords(String testWord, int maxDistance, int n) {
+        String query = testWord.toLowerCase();
+        int k = Math.min(maxDistance, maxIndexedDistance);
+        Set<Integer> seen = new HashSet<>();
+        List<ScoredWord> found = new ArrayList<>();
+
+        // Look up every delete of the query prefix in the packed table
+        for (String delete : getDeletes(getPrefix(query), k)) {
+            int hash = delete.hashCode();
+            for (int i = lowerBound(hash); i < deletes.length
+                    && (int) (deletes[i] >> 32) == hash; i++) {
+                int id = (int) (deletes[i] & ID_MASK);
+                if (seen.add(id)) {
+                    addIfClose(found, query, words[id], k);
+                }
+            }
+        }
+
+        // Late additions are few enough to check directly
+        for (String word : addedWords) {
+            addIfClose(found, query, word, k);
+        }
+
+        return WordCandidateIndex.getBestN(found, n);
+    }
+
+    /**
+     * Verify a candidate by its true edit distance and keep it if close
+     * @param found - the list of accepted candidates
+     * @param query - the lowercase query word
+     * @param word - the candidate word
+     * @param k - the maximum edit distance
+     */
+    private void addIfClose(Collection<ScoredWord> found, String query, String word, int k) {
+        if (Math.abs(word.length() - query.length()) > k) { return; }
+        int distance = StringDistance.getLocalInstance().boundedDistance(query, word, k);
+        if (distance <= k) {
+            found.add(new ScoredWord(word, distance));
+        }
+    }
+
+    /**
+     * Find the first table position whose hash is at least the given hash
+     * @param hash - the delete hash
+     * @return the first matching position, or the insertion point
+     */
+    private int lowerBound(int hash) {
+        long key = pack(hash, 0);
+        int low = 0;
+        int high = deletes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (deletes[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Pack a delete hash and word id into a single sortable long
+     * @param hash - the delete hash
+     * @param id - the word id
+     * @return the packed entry
+     */
+    private static long pack(int hash, int id) {
+        return ((long) hash << 32) | (id & ID_MASK);
+    }
+
+    /**
+     * Get the portion of a word that is expanded into deletes
+     * @param word - the word
+     * @return the prefix
+     */
+    private static String getPrefix(String word) {
+        return word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+    }
+
+    /**
+     * Generate all strings reachable by deleting up to k characters,
+     * including the original string itself
+     * @param word - the string to expand
+     * @param k - the maximum number of deletions
+     * @return the set of deletes
+     */
+    static Set<String> getDeletes(String word, int k) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        Collection<String> frontier = new ArrayList<>(result);
+        for (int depth = 0; depth < k; depth++) {
+            Collection<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                for (int i = 0; i < current.length(); i++) {
+                    String delete = current.substring(0, i) + current.substring(i + 1);
+                    if (result.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    @Override
+    public int size() { return words.length + addedWords.size(); }
+
+}
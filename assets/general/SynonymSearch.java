@@ -47,21 +47,32 @@ public class SynonymSearch {
      * @return a LinkedList of synonyms for ranking
      */
     public LinkedList<String> getSynonyms(String taggedWord[]) {
-        if (taggedWord == null || taggedWord[0] == null || taggedWord[1] == null
-                || taggedWord[0].isEmpty() || taggedWord[1].isEmpty()
-                || !POSTagConverter.isAllowedType(taggedWord[1])) {
+        if (taggedWord == null || taggedWord[0] == null || taggedWord[1] == null) {
+            return new LinkedList<>();
+        }
+        return getSynonyms(taggedWord[0], POSTagConverter.getPennTagId(taggedWord[1]));
+    }
+
+    /**
+     * Return a list of synonymous words and phrases
+     * for a given word and part of speech
+     * @param word - the word
+     * @param pos - the word's Penn tag id
+     * @return a LinkedList of synonyms for ranking
+     */
+    public LinkedList<String> getSynonyms(String word, byte pos) {
+        if (word == null || word.isEmpty() || !POSTagConverter.isAllowedType(pos)) {
             return new LinkedList<>();
         }
 
         LinkedList<String> synonymList = new LinkedList<>();
-        Iterable<Synset> synsets = getNBestSynsets(taggedWord[0],
-                getWordSynsetType(taggedWord[1]));
+        Iterable<Synset> synsets = getNBestSynsets(word, getWordSynsetType(pos));
 
         // Get all synonymous words and phrases
         for (Synset currSet : synsets) {
             for (String currSynonym : currSet.getWordForms()) {
                 if (!synonymList.contains(currSynonym)
-                        && !currSynonym.equals(taggedWord[0])) {
+                        && !currSynonym.equals(word)) {
                     synonymList.add(currSynonym);
                 }
             }
@@ -101,14 +112,15 @@ public class SynonymSearch {
 
     /**
      * Get the appropriate synset type for a given POS
-     * @param pos - the word's POS
+     * @param pos - the word's Penn tag id
      * @return the appropriate SynsetType
      */
-    private SynsetType getWordSynsetType(String pos) {
-        if (POSTagConverter.isAdverb(pos)) { return SynsetType.ADVERB; }
-        else if (POSTagConverter.isVerb(pos)) { return SynsetType.VERB; }
-        else if (POSTagConverter.isAdjective(pos)) { return SynsetType.ADJECTIVE; }
-        else if (POSTagConverter.isNoun(pos)) { return SynsetType.NOUN; }
+    private SynsetType getWordSynsetType(byte pos) {
+        int families = POSTagConverter.getFamilies(pos);
+        if ((families & POSTagConverter.ADVERB) != 0) { return SynsetType.ADVERB; }
+        else if ((families & POSTagConverter.VERB) != 0) { return SynsetType.VERB; }
+        else if ((families & POSTagConverter.ADJECTIVE) != 0) { return SynsetType.ADJECTIVE; }
+        else if ((families & POSTagConverter.NOUN) != 0) { return SynsetType.NOUN; }
         else { throw new IllegalArgumentException("POS is not of an allowed type!"); }
     }
 
@@ -0,0 +1,141 @@
+package assets.general;
+
+/**
+ * A part of speech tagged sentence, held as parallel arrays of token
+ * offsets into the sentence text and Penn tag ids (see POSTagConverter),
+ * rather than as a String per word and per tag. Punctuation marks are
+ * left out, as in POSTagger.getSentenceWordsAndTags().
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public class TaggedSentence {
+
+    private final String text;
+    private final int starts[];             // Start offset of each token
+    private final int ends[];               // End offset of each token (exclusive)
+    private final byte tags[];              // Penn tag id of each token
+    private final int size;
+    private final boolean complete;         // False if some words could not be tagged
+
+    /**
+     * Create a tagged sentence from filled arrays, which may be longer
+     * than the number of tokens
+     * @param t - the sentence text
+     * @param s - the token start offsets
+     * @param e - the token end offsets
+     * @param g - the token tag ids
+     * @param n - the number of tokens
+     */
+    TaggedSentence(String t, int s[], int e[], byte g[], int n) {
+        this(t, s, e, g, n, true);
+    }
+
+    /**
+     * Create a tagged sentence from filled arrays, which may be longer
+     * than the number of tokens
+     * @param t - the sentence text
+     * @param s - the token start offsets
+     * @param e - the token end offsets
+     * @param g - the token tag ids
+     * @param n - the number of tokens
+     * @param c - false if some words were left with UNKNOWN_TAG because tagging failed
+     */
+    TaggedSentence(String t, int s[], int e[], byte g[], int n, boolean c) {
+        text = t;
+        starts = s;
+        ends = e;
+        tags = g;
+        size = n;
+        complete = c;
+    }
+
+    /**
+     * Get the sentence text
+     * @return the text the offsets refer to
+     */
+    public String getText() { return text; }
+
+    /**
+     * Get the number of tokens
+     * @return the token count
+     */
+    public int size() { return size; }
+
+    /**
+     * Check whether the tagger tagged every word. A sentence that ran it
+     * out of memory keeps some words with UNKNOWN_TAG instead.
+     * @return true if every word was tagged
+     */
+    public boolean isComplete() { return complete; }
+
+    /**
+     * Get the start of a token
+     * @param token - the token index
+     * @return the offset in the sentence text
+     */
+    public int getStart(int token) { return starts[token]; }
+
+    /**
+     * Get the end of a token
+     * @param token - the token index
+     * @return the offset in the sentence text (exclusive)
+     */
+    public int getEnd(int token) { return ends[token]; }
+
+    /**
+     * Get the tag of a token
+     * @param token - the token index
+     * @return the Penn tag id
+     */
+    public byte getTag(int token) { return tags[token]; }
+
+    /**
+     * Get the text of a token
+     * @param token - the token index
+     * @return the word
+     */
+    public String getWord(int token) { return text.substring(starts[token], ends[token]); }
+
+    /**
+     * Check whether a token's text equals a word, without copying it
+     * @param token - the token index
+     * @param word - the word
+     * @return true if they match
+     */
+    public boolean isWord(int token, String word) {
+        return ends[token] - starts[token] == word.length()
+                && text.regionMatches(starts[token], word, 0, word.length());
+    }
+
+    /**
+     * Find the token starting at an offset
+     * @param offset - the offset in the sentence text
+     * @return the token index, or -1 if no token starts there
+     */
+    public int getTokenAt(int offset) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < offset) {
+                low = mid + 1;
+            } else if (starts[mid] > offset) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get a token as a word and Penn tag pair
+     * @param token - the token index
+     * @return the array [word][tag]
+     */
+    public String[] getWordAndTag(int token) {
+        return new String[] { getWord(token), POSTagConverter.getPennTag(tags[token]) };
+    }
+
+}
@@ -0,0 +1,31 @@
+package assets.general;
+
+/**
+ * Cache of tagged sentences, keyed by the hash of the sentence text, so
+ * any component that tags a sentence the tagger has already seen gets
+ * the stored result instead. A hit is only returned if the stored text
+ * matches, so hash collisions are harmless.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public class TaggedSentenceCache extends SentenceCache<TaggedSentence> {
+
+    /**
+     * Get the cached tags for a sentence
+     * @param sentence - the sentence text
+     * @return the tagged sentence, or null if it has not been tagged
+     */
+    public TaggedSentence get(String sentence) {
+        return get(hash(sentence, 0, sentence.length()), tagged -> tagged.getText().equals(sentence));
+    }
+
+    /**
+     * Cache the tags for a sentence
+     * @param tagged - the tagged sentence
+     */
+    public void put(TaggedSentence tagged) {
+        put(hash(tagged.getText(), 0, tagged.getText().length()), tagged);
+    }
+
+}
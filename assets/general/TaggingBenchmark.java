@@ -0,0 +1,119 @@
+package assets.general;
+
+import assets.parsing.AuthorParser;
+import assets.parsing.CorporaParser;
+import org.languagetool.JLanguageTool;
+import org.languagetool.language.AmericanEnglish;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark of batch part of speech tagging throughput with 1, 2, 4
+ * and 8 tagging threads, over a whole Gutenberg book from the authors
+ * corpus. Every run is checked against the serial tags. The tagged
+ * sentence cache is cleared before each run, so every run really tags.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class TaggingBenchmark {
+
+    // Tagging thread counts to time
+    private static final int THREAD_COUNTS[] = { 1, 2, 4, 8 };
+
+    // Sentences tagged before timing, to warm up each new tagger
+    private static final int WARMUP_SENTENCES = 200;
+
+    private static final DecimalFormat DF = new DecimalFormat("#.##");
+
+    /**
+     * Find the first book in a directory tree
+     * @param dir - the directory to search
+     * @return the book file, or null if there is none
+     */
+    private static File findBook(File dir) {
+        File files[] = dir.listFiles();
+        if (files == null) { return null; }
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith(AuthorParser.BOOK_EXT)
+                    && !file.getName().endsWith(AuthorParser.PROFILE_EXT)) {
+                return file;
+            }
+        }
+        for (File file : files) {
+            File book = file.isDirectory() ? findBook(file) : null;
+            if (book != null) { return book; }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether two tagged sentences have the same tokens and tags
+     * @param a - the first sentence
+     * @param b - the second sentence
+     * @return true if they match
+     */
+    private static boolean sameTags(TaggedSentence a, TaggedSentence b) {
+        if (a.size() != b.size()) { return false; }
+        for (int token = 0; token < a.size(); token++) {
+            if (a.getStart(token) != b.getStart(token) || a.getEnd(token) != b.getEnd(token)
+                    || a.getTag(token) != b.getTag(token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Main method
+     * @param args - optionally, the book to tag
+     */
+    public static void main(String... args) throws Exception {
+        File book = args.length > 0 ? new File(args[0]) : findBook(new File(AuthorParser.AUTHORS_DIR));
+        if (book == null) {
+            System.err.println("Uh oh! No book found in " + AuthorParser.AUTHORS_DIR);
+            return;
+        }
+        String text = CorporaParser.getFileAsString(book.getPath());
+        if (text == null) { return; }
+        List<String> sentences = new JLanguageTool(new AmericanEnglish()).sentenceTokenize(text);
+        List<String> warmup = sentences.subList(0, Math.min(WARMUP_SENTENCES, sentences.size()));
+        System.out.println("Book: " + book.getPath() + " (" + text.length() + " characters, "
+                + sentences.size() + " sentences)\n");
+
+        POSTagger tagger = new POSTagger();
+        List<TaggedSentence> serial = null;
+        for (int threads : THREAD_COUNTS) {
+
+            // Load any new taggers and warm them up
+            long startTime = System.currentTimeMillis();
+            tagger.setTaggingThreads(threads);
+            long loadTime = System.currentTimeMillis() - startTime;
+            tagger.getCache().clear();
+            tagger.tagSentences(warmup);
+
+            tagger.getCache().clear();
+            startTime = System.nanoTime();
+            List<TaggedSentence> tagged = tagger.tagSentences(sentences);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+
+            int tokens = 0;
+            int mismatches = 0;
+            for (int i = 0; i < tagged.size(); i++) {
+                tokens += tagged.get(i).size();
+                if (serial != null && !sameTags(serial.get(i), tagged.get(i))) { mismatches++; }
+            }
+            if (serial == null) { serial = new ArrayList<>(tagged); }
+
+            System.out.println(threads + " thread(s): " + DF.format(seconds) + " s, "
+                    + DF.format(sentences.size() / seconds) + " sentences/s, "
+                    + DF.format(tokens / seconds) + " tokens/s (taggers loaded in "
+                    + loadTime + " ms, " + mismatches + " mismatches)");
+        }
+        tagger.setTaggingThreads(1);
+    }
+
+}
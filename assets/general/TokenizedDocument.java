@@ -0,0 +1,316 @@
+package assets.general;
+
+import java.util.Arrays;
+
+/**
+ * Class to hold a single tokenization of a document so that spell
+ * and style checks can share it instead of re-tokenizing the text for
+ * every error. Token boundaries follow the same rules as
+ * SCStringFormat.getAllWordsAndPositions.
+ *
+ * Everything is stored in parallel arrays indexed by token number:
+ * start/end offsets (end exclusive), sentence ids, whether the token
+ * starts a sentence, and the cleaned (trimmed, lowercase) form used
+ * for dictionary and n-gram lookups. Each token is also classified once
+ * as hyphenated (part of a compound with one or two hyphens) and/or a
+ * proper noun (capitalized mid-sentence). Tokens may also be flagged as
+ * unknown words by the spell checker.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public class TokenizedDocument {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Token classification flags
+    public static final int HYPHENATED = 1;
+    public static final int PROPER_NOUN = 2;
+
+    // Most hyphens a compound word may have and still be excused
+    private static final int MAX_COMPOUND_HYPHENS = 2;
+
+    private final CharSequence text;
+    private int starts[];               // Start offset of each token
+    private int ends[];                 // End offset (exclusive) of each token
+    private int sentenceIds[];          // Sentence number of each token
+    private boolean sentenceStarts[];   // True if the token begins a sentence
+    private String cleaned[];           // Cleaned lowercase form of each token
+    private byte flags[];               // Classification flags of each token
+    private boolean unknown[];          // True if flagged as an unknown word
+    private int sentenceTokens[];       // First token of each sentence, then size
+    private int size;
+
+    /**
+     * Tokenize a document in a single pass
+     * @param t - the document text
+     */
+    public TokenizedDocument(CharSequence t) {
+        text = t;
+        starts = new int[INITIAL_CAPACITY];
+        ends = new int[INITIAL_CAPACITY];
+        sentenceIds = new int[INITIAL_CAPACITY];
+        sentenceStarts = new boolean[INITIAL_CAPACITY];
+        cleaned = new String[INITIAL_CAPACITY];
+        flags = new byte[INITIAL_CAPACITY];
+        size = 0;
+        tokenize();
+        classifyCompounds();
+        indexSentences();
+        unknown = new boolean[size];
+    }
+
+    /**
+     * Walk the text once, recording every token
+     */
+    private void tokenize() {
+        int length = text.length();
+        int sentence = -1;
+        int pos = 0;
+        while (pos < length) {
+
+            // Walk until word char found
+            while (pos < length && !isWordStartChar(text.charAt(pos))) { pos++; }
+            if (pos >= length) { break; }
+
+            // Walk through text until non-word char found
+            int end = pos + 1;
+            while (end < length && (Character.isLetterOrDigit(text.charAt(end))
+                    || text.charAt(end) == '\'')) {
+                end++;
+            }
+
+            boolean first = SCStringFormat.isFirstWordInSentence(text, pos);
+            if (first || sentence < 0) { sentence++; }
+            addToken(pos, end, sentence, first);
+            pos = end;
+        }
+    }
+
+    /**
+     * Record the first token of every sentence
+     */
+    private void indexSentences() {
+        int sentences = size == 0 ? 0 : sentenceIds[size - 1] + 1;
+        sentenceTokens = new int[sentences + 1];
+        for (int token = size - 1; token >= 0; token--) {
+            sentenceTokens[sentenceIds[token]] = token;
+        }
+        sentenceTokens[sentences] = size;
+    }
+
+    /**
+     * Check whether a character can begin a word
+     * @param c - the character
+     * @return true if the character can begin a word
+     */
+    private static boolean isWordStartChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'' || c == '-';
+    }
+
+    /**
+     * Append a token to the arrays
+     * @param start - the start offset
+     * @param end - the end offset (exclusive)
+     * @param sentence - the sentence id
+     * @param first - true if the token begins a sentence
+     */
+    private void addToken(int start, int end, int sentence, boolean first) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            sentenceIds = Arrays.copyOf(sentenceIds, capacity);
+            sentenceStarts = Arrays.copyOf(sentenceStarts, capacity);
+            cleaned = Arrays.copyOf(cleaned, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        sentenceIds[size] = sentence;
+        sentenceStarts[size] = first;
+        cleaned[size] = cleanWord(text, start, end);
+        flags[size] = !first && Character.isUpperCase(text.charAt(start)) ? (byte) PROPER_NOUN : 0;
+        size++;
+    }
+
+    /**
+     * Flag the tokens of compound words. A token starting with a hyphen
+     * directly after another token continues that compound.
+     */
+    private void classifyCompounds() {
+        int first = 0;
+        while (first < size) {
+            int last = first;
+            int hyphens = startsWithHyphen(first) ? 1 : 0;
+            while (last + 1 < size && starts[last + 1] == ends[last] && startsWithHyphen(last + 1)) {
+                last++;
+                hyphens++;
+            }
+            if (hyphens > 0 && hyphens <= MAX_COMPOUND_HYPHENS) {
+                for (int i = first; i <= last; i++) { flags[i] |= HYPHENATED; }
+            }
+            first = last + 1;
+        }
+    }
+
+    /**
+     * Check whether a token begins with a hyphen
+     * @param token - the token index
+     * @return true if the token's first character is a hyphen
+     */
+    private boolean startsWithHyphen(int token) {
+        return text.charAt(starts[token]) == '-';
+    }
+
+    /**
+     * Trim whitespace, punctuation, etc. from a range of text and
+     * lowercase it
+     * @param text - the text
+     * @param start - the start of the range
+     * @param end - the end of the range (exclusive)
+     * @return the cleaned word
+     */
+    public static String cleanWord(CharSequence text, int start, int end) {
+        int first = start;
+        int last = end - 1;
+        while (first < end - 1 && !isWordStartChar(text.charAt(first))) { first++; }
+        while (last >= start && last > first && !isWordStartChar(text.charAt(last))) { last--; }
+        return text.subSequence(first, last + 1).toString().toLowerCase();
+    }
+
+    /**
+     * Find the token containing a text offset
+     * @param position - the text offset
+     * @return the token index, or -1 if the offset is not inside a token
+     */
+    public int getTokenAt(int position) {
+        int index = Arrays.binarySearch(starts, 0, size, position);
+        if (index >= 0) { return index; }
+        int before = -index - 2;
+        return before >= 0 && position < ends[before] ? before : -1;
+    }
+
+    /**
+     * Get the raw text of a token
+     * @param token - the token index
+     * @return the token text
+     */
+    public String getToken(int token) {
+        return text.subSequence(starts[token], ends[token]).toString();
+    }
+
+    /**
+     * Flag a token as an unknown (misspelled) word
+     * @param token - the token index
+     * @param value - true if the token is unknown
+     */
+    public void setUnknown(int token, boolean value) { unknown[token] = value; }
+
+    /**
+     * Check whether a token has been flagged as unknown
+     * @param token - the token index
+     * @return true if the token is unknown
+     */
+    public boolean isUnknown(int token) { return unknown[token]; }
+
+    /**
+     * Get the start offset of a token
+     * @param token - the token index
+     * @return the start offset
+     */
+    public int getStart(int token) { return starts[token]; }
+
+    /**
+     * Get the end offset (exclusive) of a token
+     * @param token - the token index
+     * @return the end offset
+     */
+    public int getEnd(int token) { return ends[token]; }
+
+    /**
+     * Get the sentence id of a token
+     * @param token - the token index
+     * @return the sentence id
+     */
+    public int getSentenceId(int token) { return sentenceIds[token]; }
+
+    /**
+     * Get the number of sentences
+     * @return the sentence count
+     */
+    public int getSentenceCount() { return sentenceTokens.length - 1; }
+
+    /**
+     * Get the first token of a sentence
+     * @param sentence - the sentence id
+     * @return the token index
+     */
+    public int getFirstToken(int sentence) { return sentenceTokens[sentence]; }
+
+    /**
+     * Get one past the last token of a sentence
+     * @param sentence - the sentence id
+     * @return the token index
+     */
+    public int getEndToken(int sentence) { return sentenceTokens[sentence + 1]; }
+
+    /**
+     * Get the text offset where a sentence starts (its first token)
+     * @param sentence - the sentence id
+     * @return the start offset
+     */
+    public int getSentenceStart(int sentence) { return starts[sentenceTokens[sentence]]; }
+
+    /**
+     * Get the text offset where a sentence ends, which is the start of
+     * the next sentence (so trailing punctuation is included)
+     * @param sentence - the sentence id
+     * @return the end offset (exclusive)
+     */
+    public int getSentenceEnd(int sentence) {
+        return sentence + 1 < getSentenceCount()
+                ? getSentenceStart(sentence + 1) : text.length();
+    }
+
+    /**
+     * Check whether a token begins a sentence
+     * @param token - the token index
+     * @return true if the token is the first in its sentence
+     */
+    public boolean isFirstInSentence(int token) { return sentenceStarts[token]; }
+
+    /**
+     * Check whether a token is part of a compound word with one or two hyphens
+     * @param token - the token index
+     * @return true if the token is hyphenated
+     */
+    public boolean isHyphenated(int token) { return (flags[token] & HYPHENATED) != 0; }
+
+    /**
+     * Check whether a token is capitalized but not the first in its sentence
+     * @param token - the token index
+     * @return true if the token looks like a proper noun
+     */
+    public boolean isProperNoun(int token) { return (flags[token] & PROPER_NOUN) != 0; }
+
+    /**
+     * Get the cleaned form of a token
+     * @param token - the token index
+     * @return the cleaned lowercase form
+     */
+    public String getCleaned(int token) { return cleaned[token]; }
+
+    /**
+     * Get the number of tokens
+     * @return the token count
+     */
+    public int size() { return size; }
+
+    /**
+     * Getter for the document text
+     * @return the text
+     */
+    public CharSequence getText() { return text; }
+
+}
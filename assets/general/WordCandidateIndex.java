@@ -0,0 +1,54 @@
+package assets.general;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.stream.Collectors;
+
+/**
+ * Interface for a searchable index of dictionary words that
+ * can answer "closest words within edit distance k" queries
+ * without scanning the whole dictionary.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public interface WordCandidateIndex {
+
+    /**
+     * Add a single (lowercase) word to the index
+     * @param word - the word to add
+     */
+    void add(String word);
+
+    /**
+     * Return the n closest words to the test word that lie within
+     * the given edit distance, sorted from best to worst. Ties are
+     * broken alphabetically so that results are deterministic.
+     * @param testWord - the word to compare to
+     * @param maxDistance - the maximum edit distance to consider
+     * @param n - the maximum number of words to return
+     * @return the list of words scored by edit distance
+     */
+    LinkedList<ScoredWord> getClosestWords(String testWord, int maxDistance, int n);
+
+    /**
+     * Get the number of words in the index
+     * @return the number of words
+     */
+    int size();
+
+    /**
+     * Sort scored candidates by distance (then alphabetically) and
+     * truncate the list to the n best
+     * @param scored - the scored candidates
+     * @param n - the maximum number of words to keep
+     * @return the sorted, truncated list
+     */
+    static LinkedList<ScoredWord> getBestN(Collection<ScoredWord> scored, int n) {
+        return scored.stream().sorted(Comparator.<ScoredWord>comparingDouble(
+                candidate -> candidate.score).thenComparing(candidate -> candidate.word))
+                .limit(n).collect(Collectors.toCollection(LinkedList::new));
+    }
+
+}
@@ -0,0 +1,186 @@
+package assets.general;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Finds every whole-word occurrence of a set of words in a single pass
+ * over a text, using an Aho-Corasick automaton.
+ *
+ * The words are built into a trie whose states carry failure links
+ * (the longest proper suffix that is also a trie path) and output links
+ * (the nearest suffix state that ends a word), so the text is read once
+ * no matter how many words are searched for. The trie edges are packed
+ * as (state << 16 | char) into a single sorted long array, so each
+ * state's edges are contiguous and a step is a binary search over just
+ * that state's edges. A match is only reported if it is not part of a
+ * longer word, so "run" is not found inside "running". Matching is case
+ * sensitive.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public class WordLocator {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final String words[];           // Word for each word id
+    private final long edges[];             // Sorted (state << 16 | char) trie edges
+    private final int targets[];            // Target state of each edge
+    private final int firstEdges[];         // Index of each state's first edge (plus a sentinel)
+    private final int fail[];               // Failure link of each state
+    private final int output[];             // Nearest suffix state that ends a word, or NONE
+    private final int wordAt[];             // Word id ending at each state, or NONE
+
+    /**
+     * Build a locator for a set of words
+     * @param wordList - the words to find (empty words are ignored)
+     */
+    public WordLocator(Collection<String> wordList) {
+        LinkedHashSet<String> unique = new LinkedHashSet<>(wordList);
+        unique.remove("");
+        words = unique.toArray(new String[unique.size()]);
+
+        // Build the trie
+        Map<Long, Integer> trie = new HashMap<>();
+        int stateCount = 1;
+        int wordEnds[] = new int[words.length];
+        for (int id = 0; id < words.length; id++) {
+            int state = ROOT;
+            for (int i = 0; i < words[id].length(); i++) {
+                long edge = pack(state, words[id].charAt(i));
+                Integer next = trie.get(edge);
+                if (next == null) {
+                    next = stateCount++;
+                    trie.put(edge, next);
+                }
+                state = next;
+            }
+            wordEnds[id] = state;
+        }
+        wordAt = new int[stateCount];
+        Arrays.fill(wordAt, NONE);
+        for (int id = 0; id < words.length; id++) { wordAt[wordEnds[id]] = id; }
+
+        // Flatten the edges into sorted arrays, which groups them by source state
+        edges = new long[trie.size()];
+        int edgeCount = 0;
+        for (Long edge : trie.keySet()) { edges[edgeCount++] = edge; }
+        Arrays.sort(edges);
+        targets = new int[edges.length];
+        for (int i = 0; i < edges.length; i++) { targets[i] = trie.get(edges[i]); }
+        firstEdges = new int[stateCount + 1];
+        for (int state = 0, i = 0; state <= stateCount; state++) {
+            while (i < edges.length && (int) (edges[i] >>> 16) < state) { i++; }
+            firstEdges[state] = i;
+        }
+
+        // Breadth-first over the trie to set the failure and output links
+        fail = new int[stateCount];
+        output = new int[stateCount];
+        output[ROOT] = NONE;
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(ROOT);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = firstEdges[state]; i < firstEdges[state + 1]; i++) {
+                char c = (char) edges[i];
+                int child = targets[i];
+                if (state == ROOT) {
+                    fail[child] = ROOT;
+                } else {
+                    int f = fail[state];
+                    while (f != ROOT && step(f, c) == NONE) { f = fail[f]; }
+                    int next = step(f, c);
+                    fail[child] = next == NONE ? ROOT : next;
+                }
+                output[child] = wordAt[fail[child]] != NONE ? fail[child] : output[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Pack a trie edge
+     * @param state - the source state
+     * @param c - the edge character
+     * @return the packed edge
+     */
+    private static long pack(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+
+    /**
+     * Follow a trie edge
+     * @param state - the source state
+     * @param c - the character
+     * @return the target state, or NONE if there is no such edge
+     */
+    private int step(int state, char c) {
+        int index = Arrays.binarySearch(edges, firstEdges[state], firstEdges[state + 1],
+                pack(state, c));
+        return index >= 0 ? targets[index] : NONE;
+    }
+
+    /**
+     * Check whether a character can be part of a word
+     * @param c - the character
+     * @return true if it is a letter or digit
+     */
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Find every whole-word occurrence of the words in a text
+     * @param text - the text
+     * @param found - receives each word and its start offset, in text order
+     */
+    public void locate(CharSequence text, ObjIntConsumer<String> found) {
+        locate(text, 0, text.length(), found);
+    }
+
+    /**
+     * Find every whole-word occurrence of the words in part of a text
+     * @param text - the text
+     * @param start - the start of the part to search
+     * @param end - the end of the part to search (exclusive)
+     * @param found - receives each word and its start offset, in order of end offset
+     */
+    public void locate(CharSequence text, int start, int end, ObjIntConsumer<String> found) {
+        int state = ROOT;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            int next = step(state, c);
+            while (next == NONE && state != ROOT) {
+                state = fail[state];
+                next = step(state, c);
+            }
+            state = next == NONE ? ROOT : next;
+
+            // Report every word ending here that stands on its own
+            if (i + 1 < text.length() && isWordChar(text.charAt(i + 1))) { continue; }
+            for (int s = wordAt[state] != NONE ? state : output[state]; s != NONE; s = output[s]) {
+                String word = words[wordAt[s]];
+                int wordStart = i - word.length() + 1;
+                if (wordStart == 0 || !isWordChar(text.charAt(wordStart - 1))) {
+                    found.accept(word, wordStart);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of distinct words searched for
+     * @return the word count
+     */
+    public int size() { return words.length; }
+
+}
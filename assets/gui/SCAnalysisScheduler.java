@@ -0,0 +1,234 @@
+package assets.gui;
+
+import javax.swing.*;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class to run document analysis off the Swing event dispatch thread.
+ *
+ * Each job runs in a SwingWorker on a single background thread, so jobs
+ * never overlap and can share the analysis components. Jobs publish
+ * their results as Runnables, which are run on the event dispatch thread
+ * as soon as they are ready so partial results can be shown early.
+ * Submitting a new job, or calling cancel(), cancels the job in flight
+ * and discards anything it has not yet published. An edit only calls
+ * interrupt(), which cancels live checks and checks whose results are
+ * tied to the text they were given; the latter are remembered so they can
+ * be run again once the edits settle, and any other job keeps running.
+ * Small follow-up jobs can be queued with enqueue() instead, which
+ * leaves the current job running.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class SCAnalysisScheduler {
+
+    /**
+     * A unit of analysis work, run on the background thread
+     */
+    interface AnalysisJob {
+
+        /**
+         * Run the analysis
+         * @param publisher - receives updates to apply on the EDT
+         * @throws Exception
+         */
+        void analyze(Publisher publisher) throws Exception;
+    }
+
+    /**
+     * Receives results to apply on the event dispatch thread
+     */
+    interface Publisher {
+
+        /**
+         * Queue an update for the event dispatch thread
+         * @param update - the update to run
+         * @throws InterruptedException if the job has been cancelled
+         */
+        void publish(Runnable update) throws InterruptedException;
+    }
+
+    private final ExecutorService executor;
+    private AnalysisWorker current;             // The latest job (EDT access only)
+    private Runnable interrupted;               // Reruns the job an edit interrupted
+
+    /**
+     * Create a scheduler with its own background thread
+     */
+    SCAnalysisScheduler() {
+        executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "StyleCheck-analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Cancel any job in flight and schedule a new one. Call on the EDT.
+     * @param name - the job name, for error messages
+     * @param job - the job
+     */
+    void submit(String name, AnalysisJob job) {
+        schedule(new AnalysisWorker(name, job, false, null));
+    }
+
+    /**
+     * Cancel any job in flight and schedule a job whose results are tied
+     * to the text it was given, so an edit interrupts it. Call on the EDT.
+     * @param name - the job name, for error messages
+     * @param job - the job
+     * @param rerun - starts the job again on fresh text after an edit
+     */
+    void submit(String name, AnalysisJob job, Runnable rerun) {
+        schedule(new AnalysisWorker(name, job, true, rerun));
+    }
+
+    /**
+     * Cancel any job in flight and schedule a live check, which the next
+     * edit interrupts. Call on the EDT.
+     * @param name - the job name, for error messages
+     * @param job - the job
+     */
+    void submitLive(String name, AnalysisJob job) {
+        schedule(new AnalysisWorker(name, job, true, null));
+    }
+
+    /**
+     * Cancel any job in flight and run a new one
+     * @param worker - the new job
+     */
+    private void schedule(AnalysisWorker worker) {
+        cancel();
+        current = worker;
+        executor.execute(current);
+    }
+
+    /**
+     * Queue a small job behind the current one without cancelling it.
+     * Queued jobs are not cancelled by submit() or cancel(). Call on the EDT.
+     * @param name - the job name, for error messages
+     * @param job - the job
+     */
+    void enqueue(String name, AnalysisJob job) {
+        executor.execute(new AnalysisWorker(name, job, false, null));
+    }
+
+    /**
+     * Cancel the job in flight, if any, and forget any interrupted job.
+     * Call on the EDT.
+     */
+    void cancel() {
+        interrupted = null;
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    /**
+     * Cancel the job in flight if an edit makes its results stale. A job
+     * submitted with a rerun is remembered until takeInterrupted().
+     * Call on the EDT.
+     */
+    void interrupt() {
+        if (current == null || !current.interruptible) { return; }
+        Runnable rerun = current.rerun != null && !current.isDone() ? current.rerun : interrupted;
+        cancel();
+        interrupted = rerun;
+    }
+
+    /**
+     * Take the rerun of the last job interrupted by an edit. Call on the EDT.
+     * @return the rerun, or null if there is nothing to run again
+     */
+    Runnable takeInterrupted() {
+        Runnable rerun = interrupted;
+        interrupted = null;
+        return rerun;
+    }
+
+    /**
+     * Check whether a job is queued or running
+     * @return true if analysis is in progress
+     */
+    boolean isBusy() {
+        return current != null && !current.isDone();
+    }
+
+    /**
+     * Throw if the current background job has been cancelled. Jobs call
+     * this between expensive steps.
+     * @throws InterruptedException if cancelled
+     */
+    static void checkCancelled() throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Analysis cancelled");
+        }
+    }
+
+    /**
+     * SwingWorker wrapping a single job
+     */
+    private static class AnalysisWorker extends SwingWorker<Void, Runnable> {
+
+        private final String name;
+        private final AnalysisJob job;
+        private final boolean interruptible;    // Cancelled by edits
+        private final Runnable rerun;           // Runs the job again after an edit, or null
+
+        /**
+         * Create a worker
+         * @param n - the job name
+         * @param j - the job
+         * @param i - true if edits cancel the job
+         * @param r - runs the job again after an edit, or null
+         */
+        AnalysisWorker(String n, AnalysisJob j, boolean i, Runnable r) {
+            name = n;
+            job = j;
+            interruptible = i;
+            rerun = r;
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            job.analyze(update -> {
+                checkCancelled();
+                publish(update);
+            });
+            return null;
+        }
+
+        @Override
+        protected void process(List<Runnable> updates) {
+            for (Runnable update : updates) {
+                if (isCancelled()) { return; }
+                update.run();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) { return; }
+            try {
+                get();
+            } catch (CancellationException | InterruptedException e) {
+                if (SCGUI.DEBUG) { System.out.println(name + " cancelled."); }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InterruptedException
+                        || e.getCause() instanceof InterruptedIOException) {
+                    return;
+                }
+                System.err.println("Uh oh! " + name + " failed: " + e.getCause());
+                e.getCause().printStackTrace();
+            }
+        }
+    }
+
+}
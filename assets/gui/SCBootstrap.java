@@ -0,0 +1,239 @@
+package assets.gui;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Class to load the StyleCheck resources in the background, in parallel,
+ * while the editor is already open.
+ *
+ * Each resource (the tagger, LanguageTool, each corpus) is loaded by its
+ * own task on a small pool of daemon threads, and moves from PENDING to
+ * LOADING to READY or FAILED. Listeners hear about every state change on
+ * the event dispatch thread, with the time the load took, and features
+ * ask for the states of the resources they need, so they can run in a
+ * reduced form or explain that they are still loading.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class SCBootstrap {
+
+    // Resources
+    public static final String TAGGER = "POS tagger";
+    public static final String LANGUAGE_TOOL = "LanguageTool";
+    public static final String WIKIPEDIA = "Wikipedia misspellings";
+    public static final String NGRAMS = "N-gram model";
+    public static final String DICTIONARY = "English dictionary";
+    public static final String AUTHORS = "Author profiles";
+    public static final String WORDNET = "WordNet";
+    public static final String TAGGING_THREADS = "Parallel tagging";
+
+    // Resource states
+    public static final int PENDING = 0;
+    public static final int LOADING = 1;
+    public static final int READY = 2;
+    public static final int FAILED = 3;
+
+    // Maximum loads at once; the corpora are mostly disk bound
+    public static final int MAX_THREADS = 4;
+
+    /**
+     * Hears about resource state changes on the event dispatch thread
+     */
+    interface Listener {
+
+        /**
+         * Accept a state change
+         * @param resource - the resource name
+         * @param state - the new state
+         * @param millis - the load time so far, or in total once READY or FAILED
+         */
+        void stateChanged(String resource, int state, long millis);
+    }
+
+    private final ExecutorService executor;
+    private final Map<String, Integer> states;          // EDT access only
+    private final Map<String, Long> times;              // EDT access only
+    private final List<Listener> listeners;
+    private final List<CompletableFuture<?>> loads;
+
+    /**
+     * Create a bootstrap for a set of resources, all PENDING
+     * @param resources - the resource names, in display order
+     */
+    SCBootstrap(String... resources) {
+        executor = Executors.newFixedThreadPool(Math.min(MAX_THREADS, resources.length), task -> {
+            Thread thread = new Thread(task, "StyleCheck-bootstrap");
+            thread.setDaemon(true);
+            return thread;
+        });
+        states = new LinkedHashMap<>();
+        times = new LinkedHashMap<>();
+        for (String resource : resources) {
+            states.put(resource, PENDING);
+            times.put(resource, 0L);
+        }
+        listeners = new ArrayList<>();
+        loads = new ArrayList<>();
+    }
+
+    /**
+     * Add a listener. Call on the EDT, before loading starts.
+     * @param listener - the listener
+     */
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Start loading a resource in the background. Call on the EDT.
+     * @param resource - the resource name
+     * @param loader - builds the resource
+     * @return completes with the resource, on the loading thread
+     */
+    <T> CompletableFuture<T> load(String resource, Callable<T> loader) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> run(resource, loader), executor);
+        loads.add(future);
+        return future;
+    }
+
+    /**
+     * Start loading a resource in the background once another has
+     * loaded. If that one fails, so does this. Call on the EDT.
+     * @param resource - the resource name
+     * @param dependency - completes with the resource this one needs
+     * @param loader - builds the resource from the one it needs
+     * @return completes with the resource, on the loading thread
+     */
+    <S, T> CompletableFuture<T> load(String resource, CompletableFuture<S> dependency,
+                                     Function<? super S, ? extends T> loader) {
+        CompletableFuture<T> future = dependency.handleAsync((value, e) -> {
+            if (e != null) {
+                SwingUtilities.invokeLater(() -> setState(resource, FAILED, 0));
+                throw new CompletionException(e);
+            }
+            return run(resource, () -> loader.apply(value));
+        }, executor);
+        loads.add(future);
+        return future;
+    }
+
+    /**
+     * Load a resource on the calling thread, reporting its state
+     * @param resource - the resource name
+     * @param loader - builds the resource
+     * @return the resource
+     * @throws CompletionException if it could not be loaded
+     */
+    private <T> T run(String resource, Callable<T> loader) {
+        long startTime = System.currentTimeMillis();
+        SwingUtilities.invokeLater(() -> setState(resource, LOADING, 0));
+        try {
+            T value = loader.call();
+            long runTime = System.currentTimeMillis() - startTime;
+            SwingUtilities.invokeLater(() -> setState(resource, READY, runTime));
+            return value;
+        } catch (Exception | Error e) {
+            long runTime = System.currentTimeMillis() - startTime;
+            System.err.println("Uh oh! Could not load " + resource + ": " + e);
+            SwingUtilities.invokeLater(() -> setState(resource, FAILED, runTime));
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Record a state change and tell the listeners
+     * @param resource - the resource name
+     * @param state - the new state
+     * @param millis - the load time
+     */
+    private void setState(String resource, int state, long millis) {
+        states.put(resource, state);
+        times.put(resource, millis);
+        if (SCGUI.DEBUG && state >= READY) {
+            System.out.println((state == READY ? "Loaded " : "Failed to load ")
+                    + resource + " in " + millis + " ms.");
+        }
+        for (Listener listener : listeners) { listener.stateChanged(resource, state, millis); }
+    }
+
+    /**
+     * Get the state of a resource. Call on the EDT.
+     * @param resource - the resource name
+     * @return the state, or PENDING for an unknown resource
+     */
+    int getState(String resource) {
+        Integer state = states.get(resource);
+        return state == null ? PENDING : state;
+    }
+
+    /**
+     * Check whether resources are loaded. Call on the EDT.
+     * @param resources - the resource names
+     * @return true if every one is READY
+     */
+    boolean isReady(String... resources) {
+        for (String resource : resources) {
+            if (getState(resource) != READY) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Get the resources that are not loaded. Call on the EDT.
+     * @param resources - the resource names
+     * @return the ones not READY, in the given order
+     */
+    List<String> getMissing(String... resources) {
+        List<String> missing = new ArrayList<>();
+        for (String resource : resources) {
+            if (getState(resource) != READY) { missing.add(resource); }
+        }
+        return missing;
+    }
+
+    /**
+     * Get the load time of a resource. Call on the EDT.
+     * @param resource - the resource name
+     * @return the time in ms, or 0 if it has not finished
+     */
+    long getMillis(String resource) {
+        Long millis = times.get(resource);
+        return millis == null ? 0 : millis;
+    }
+
+    /**
+     * Get every resource name
+     * @return the names, in display order
+     */
+    List<String> getResources() {
+        return Collections.unmodifiableList(new ArrayList<>(states.keySet()));
+    }
+
+    /**
+     * Run an action on the EDT once every load started so far has
+     * finished, whether or not it succeeded, then let the loading
+     * threads exit
+     * @param action - the action
+     */
+    void whenFinished(Runnable action) {
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                .handle((result, e) -> null)
+                .thenRun(() -> {
+                    executor.shutdown();
+                    SwingUtilities.invokeLater(action);
+                });
+    }
+
+}
@@ -0,0 +1,117 @@
+package assets.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class to track which parts of the editor text have changed since the
+ * last analysis results were applied (the "baseline").
+ *
+ * Every insert and remove reported by the editor's DocumentListener
+ * moves the existing dirty regions to their new offsets and marks the
+ * edited range as dirty, merging regions that touch.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class SCDirtyRegionTracker {
+
+    private final List<int[]> regions;      // Sorted, disjoint {start, end} in current offsets
+
+    /**
+     * Create a tracker with no changes
+     */
+    SCDirtyRegionTracker() {
+        regions = new ArrayList<>();
+    }
+
+    /**
+     * Record an insertion
+     * @param offset - where the text was inserted
+     * @param length - the number of characters inserted
+     */
+    void insert(int offset, int length) {
+        for (int region[] : regions) {
+            if (region[0] >= offset) { region[0] += length; }
+            if (region[1] >= offset) { region[1] += length; }
+        }
+        markDirty(offset, offset + length);
+    }
+
+    /**
+     * Record a removal
+     * @param offset - where the text was removed
+     * @param length - the number of characters removed
+     */
+    void remove(int offset, int length) {
+        for (int region[] : regions) {
+            region[0] = mapRemoval(region[0], offset, length);
+            region[1] = mapRemoval(region[1], offset, length);
+        }
+        markDirty(offset, offset);
+    }
+
+    /**
+     * Move an offset for a removal, collapsing offsets inside it to its start
+     * @param position - the offset
+     * @param offset - the start of the removal
+     * @param length - the length of the removal
+     * @return the new offset
+     */
+    private static int mapRemoval(int position, int offset, int length) {
+        if (position <= offset) { return position; }
+        return position >= offset + length ? position - length : offset;
+    }
+
+    /**
+     * Add a dirty range, merging it with any regions it touches
+     * @param start - the start of the range
+     * @param end - the end of the range (exclusive)
+     */
+    private void markDirty(int start, int end) {
+        int merged[] = { start, end };
+        List<int[]> result = new ArrayList<>(regions.size() + 1);
+        boolean placed = false;
+        for (int region[] : regions) {
+            if (region[1] < merged[0]) {
+                result.add(region);
+            } else if (region[0] > merged[1]) {
+                if (!placed) {
+                    result.add(merged);
+                    placed = true;
+                }
+                result.add(region);
+            } else {
+                merged[0] = Math.min(merged[0], region[0]);
+                merged[1] = Math.max(merged[1], region[1]);
+            }
+        }
+        if (!placed) { result.add(merged); }
+        regions.clear();
+        regions.addAll(result);
+    }
+
+    /**
+     * Check whether anything has changed since the baseline
+     * @return true if there are dirty regions
+     */
+    boolean isDirty() { return !regions.isEmpty(); }
+
+    /**
+     * Get a copy of the dirty regions
+     * @return the sorted {start, end} regions in current offsets
+     */
+    List<int[]> getDirtyRegions() {
+        List<int[]> copy = new ArrayList<>(regions.size());
+        for (int region[] : regions) { copy.add(region.clone()); }
+        return copy;
+    }
+
+    /**
+     * Make the current text the new baseline
+     */
+    void reset() {
+        regions.clear();
+    }
+
+}
@@ -0,0 +1,139 @@
+package assets.gui;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import java.awt.Component;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Class to load a text file into a new editor document in the background.
+ *
+ * The file is read a chunk at a time into one reusable buffer and decoded
+ * straight into the document, so a book-length file is never held as a
+ * whole String as well as in the document. It is not memory-mapped, as a
+ * mapping would keep the file locked on Windows until garbage collected,
+ * and saving over it would fail. Line endings are normalized to '\n' as
+ * JTextArea.read() would do. Progress is shown in a ProgressMonitor,
+ * which only appears if loading takes a while, and can cancel the load.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class SCDocumentLoader extends SwingWorker<Document, Void> {
+
+    // Bytes read and decoded at a time
+    public static final int CHUNK_SIZE = 1 << 22;
+
+    private final File file;
+    private final Consumer<Document> onLoaded;
+    private final ProgressMonitor monitor;
+
+    /**
+     * Create a loader. Call on the EDT, then execute().
+     * @param parent - the component to show progress over
+     * @param f - the file to load
+     * @param loaded - receives the document on the EDT once it is loaded
+     */
+    SCDocumentLoader(Component parent, File f, Consumer<Document> loaded) {
+        file = f;
+        onLoaded = loaded;
+        monitor = new ProgressMonitor(parent, "Opening " + f.getName() + "...", null, 0, 100);
+        addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                monitor.setProgress((Integer) e.getNewValue());
+                if (monitor.isCanceled()) { cancel(true); }
+            }
+        });
+    }
+
+    @Override
+    protected Document doInBackground() throws IOException, BadLocationException {
+        PlainDocument document = new PlainDocument();
+        document.putProperty(Document.StreamDescriptionProperty, file);
+
+        CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer bytes = ByteBuffer.allocate((int) Math.max(1, Math.min(CHUNK_SIZE, size)));
+            CharBuffer chars = CharBuffer.allocate(
+                    (int) (bytes.capacity() * decoder.maxCharsPerByte()) + 1);
+            StringBuilder chunk = new StringBuilder(chars.capacity());
+            String lineEnding = null;
+            boolean afterReturn = false;
+            boolean endOfInput = false;
+            long position = 0;
+
+            while (!endOfInput) {
+                if (isCancelled()) { return null; }
+
+                // Read the next chunk; a character split across chunks is decoded with the next
+                int read = channel.read(bytes);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    position += read;
+                }
+                bytes.flip();
+                chars.clear();
+                decoder.decode(bytes, chars, endOfInput);
+                if (endOfInput) { decoder.flush(chars); }
+                chars.flip();
+                bytes.compact();
+
+                // Convert \r\n and \r to \n
+                chunk.setLength(0);
+                while (chars.hasRemaining()) {
+                    char c = chars.get();
+                    if (c == '\r') {
+                        chunk.append('\n');
+                    } else if (c != '\n' || !afterReturn) {
+                        chunk.append(c);
+                    }
+                    if (lineEnding == null && (c == '\n' || afterReturn)) {
+                        lineEnding = !afterReturn ? "\n" : c == '\n' ? "\r\n" : "\r";
+                    }
+                    afterReturn = c == '\r';
+                }
+                document.insertString(document.getLength(), chunk.toString(), null);
+                setProgress(size == 0 ? 100 : (int) Math.min(100, 100 * position / size));
+            }
+
+            if (lineEnding != null) {
+                document.putProperty(DefaultEditorKit.EndOfLineStringProperty, lineEnding);
+            }
+        }
+        return document;
+    }
+
+    @Override
+    protected void done() {
+        monitor.close();
+        if (isCancelled()) { return; }
+        try {
+            onLoaded.accept(get());
+        } catch (CancellationException | InterruptedException e) {
+            if (SCGUI.DEBUG) { System.out.println("Opening " + file.getName() + " cancelled."); }
+        } catch (ExecutionException e) {
+            System.err.println("Uh oh! Could not open " + file.getPath() + ": " + e.getCause());
+            e.getCause().printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package assets.gui;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Position;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Map of error positions in the editor to values, such as suggested
+ * replacements, that stays correct while the text is edited.
+ *
+ * Each entry is anchored to a javax.swing.text.Position, which the
+ * document moves for every insert and remove, so edits and replacements
+ * need no bookkeeping here. Positions never change their relative order,
+ * so the entries stay sorted by offset and are found by binary search
+ * on their current offsets. Swing never moves a Position at offset 0,
+ * so an error at the very start of the document keeps that offset until
+ * the next check replaces the entries.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class SCErrorAnchors<V> {
+
+    private final JTextComponent editor;
+    private final List<Position> positions;     // Sorted by current offset
+    private final List<V> values;               // The value for each position
+
+    /**
+     * Create an empty map for an editor
+     * @param e - the editor whose document the positions belong to
+     */
+    SCErrorAnchors(JTextComponent e) {
+        editor = e;
+        positions = new ArrayList<>();
+        values = new ArrayList<>();
+    }
+
+    /**
+     * Find the first entry at or after an offset
+     * @param offset - the offset in the editor
+     * @return the entry index, or size() if there is none
+     */
+    private int search(int offset) {
+        int low = 0;
+        int high = positions.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (positions.get(mid).getOffset() < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the entry at an offset
+     * @param offset - the offset in the editor
+     * @return the entry index, or -1 if there is none
+     */
+    private int indexOf(int offset) {
+        int index = search(offset);
+        return index < positions.size() && positions.get(index).getOffset() == offset ? index : -1;
+    }
+
+    /**
+     * Get the value at an offset
+     * @param offset - the offset in the editor
+     * @return the value, or null if there is no error there
+     */
+    V get(int offset) {
+        int index = indexOf(offset);
+        return index < 0 ? null : values.get(index);
+    }
+
+    /**
+     * Check whether there is an error at an offset
+     * @param offset - the offset in the editor
+     * @return true if so
+     */
+    boolean containsKey(int offset) { return indexOf(offset) >= 0; }
+
+    /**
+     * Anchor a value at an offset, replacing any value already there
+     * @param offset - the offset in the editor
+     * @param value - the value
+     */
+    void put(int offset, V value) {
+        int index = search(offset);
+        if (index < positions.size() && positions.get(index).getOffset() == offset) {
+            values.set(index, value);
+            return;
+        }
+        try {
+            positions.add(index, editor.getDocument().createPosition(offset));
+            values.add(index, value);
+        } catch (BadLocationException e) {
+            System.err.println("Uh oh! Error position " + offset + " is outside the document.");
+        }
+    }
+
+    /**
+     * Remove the value at an offset
+     * @param offset - the offset in the editor
+     * @return the removed value, or null if there was none
+     */
+    V remove(int offset) {
+        int index = indexOf(offset);
+        if (index < 0) { return null; }
+        positions.remove(index);
+        return values.remove(index);
+    }
+
+    /**
+     * Replace every entry with the contents of a map of offsets to values
+     * @param errors - the new errors, keyed by offset in the current text
+     */
+    void setAll(Map<Integer, ? extends V> errors) {
+        clear();
+        Integer offsets[] = errors.keySet().toArray(new Integer[0]);
+        Arrays.sort(offsets);
+        for (Integer offset : offsets) {
+            try {
+                positions.add(editor.getDocument().createPosition(offset));
+                values.add(errors.get(offset));
+            } catch (BadLocationException e) {
+                System.err.println("Uh oh! Error position " + offset + " is outside the document.");
+            }
+        }
+    }
+
+    /**
+     * Get the current offsets of every entry
+     * @return the sorted offsets
+     */
+    List<Integer> getOffsets() {
+        List<Integer> offsets = new ArrayList<>(positions.size());
+        for (Position position : positions) { offsets.add(position.getOffset()); }
+        return offsets;
+    }
+
+    /**
+     * Run an action for every entry, in offset order
+     * @param action - receives the current offset and the value
+     */
+    void forEach(BiConsumer<Integer, ? super V> action) {
+        for (int i = 0; i < positions.size(); i++) {
+            action.accept(positions.get(i).getOffset(), values.get(i));
+        }
+    }
+
+    /**
+     * Remove every entry
+     */
+    void clear() {
+        positions.clear();
+        values.clear();
+    }
+
+    /**
+     * Get the number of entries
+     * @return the entry count
+     */
+    int size() { return positions.size(); }
+
+}
@@ -0,0 +1,165 @@
+package assets.gui;
+
+import assets.spellcheck.EnhancedSpellCheck;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Position;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Class to find which error, if any, lies under a position in the editor.
+ *
+ * Each error category keeps its spans as sorted arrays of starts and
+ * ends, computed once when the errors are highlighted and anchored to
+ * document Positions so they follow later edits. A lookup is a binary
+ * search for the last span starting at or before the position, then a
+ * walk back over earlier spans only while the running maximum of their
+ * ends says one could still reach the position. Edits never reorder
+ * Positions, so the running maximum stays valid. The editor text is
+ * never read during a lookup.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class SCErrorIndex {
+
+    // Error categories, in the order they are checked under the caret
+    static final int SPELLING = 0;
+    static final int GRAMMAR = 1;
+    static final int STYLE = 2;
+    private static final int CATEGORY_COUNT = 3;
+
+    private static final Position EMPTY[] = new Position[0];
+
+    private final Position starts[][];      // Sorted span starts per category
+    private final Position ends[][];        // Span ends (exclusive) per category
+    private final Position maxEnds[][];     // Running maximum of ends per category
+
+    /**
+     * Create an empty index
+     */
+    SCErrorIndex() {
+        starts = new Position[CATEGORY_COUNT][];
+        ends = new Position[CATEGORY_COUNT][];
+        maxEnds = new Position[CATEGORY_COUNT][];
+        clear();
+    }
+
+    /**
+     * Replace the spans of one category. Each span runs from its error
+     * position to the next word or sentence delimiter.
+     * @param category - the error category
+     * @param positions - the error positions
+     * @param text - the editor text the positions refer to
+     * @param document - the editor document, to anchor the spans in
+     * @param inclusive - true if the delimiter itself belongs to the span
+     */
+    void setErrors(int category, Collection<Integer> positions, CharSequence text,
+                   Document document, boolean inclusive) {
+        int sorted[] = new int[positions.size()];
+        int count = 0;
+        for (Integer pos : positions) {
+            if (pos >= 0 && pos < text.length()) { sorted[count++] = pos; }
+        }
+        sorted = Arrays.copyOf(sorted, count);
+        Arrays.sort(sorted);
+
+        Position spanStarts[] = new Position[count];
+        Position spanEnds[] = new Position[count];
+        Position spanMaxEnds[] = new Position[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                int end = Math.min(getEndOfError(text, sorted[i]) + (inclusive ? 1 : 0),
+                        document.getLength());
+                spanStarts[i] = document.createPosition(sorted[i]);
+                spanEnds[i] = document.createPosition(end);
+                spanMaxEnds[i] = i > 0 && spanMaxEnds[i - 1].getOffset() > end
+                        ? spanMaxEnds[i - 1] : spanEnds[i];
+            }
+        } catch (BadLocationException e) {
+            System.err.println("Uh oh! The error spans do not match the document.");
+            spanStarts = spanEnds = spanMaxEnds = EMPTY;
+        }
+
+        starts[category] = spanStarts;
+        ends[category] = spanEnds;
+        maxEnds[category] = spanMaxEnds;
+    }
+
+    /**
+     * Find the end of an error span
+     * @param text - the editor text
+     * @param start - the error position
+     * @return the offset of the next delimiter, or the text length if there is none
+     */
+    private static int getEndOfError(CharSequence text, int start) {
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == EnhancedSpellCheck.WORD_DELIM || c == EnhancedSpellCheck.SENTENCE_DELIM) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * Find the error of a category that contains a position
+     * @param category - the error category
+     * @param offset - the position in the editor
+     * @return the error position, or -1 if there is no error there
+     */
+    int find(int category, int offset) {
+        Position spanStarts[] = starts[category];
+
+        // Last span starting at or before the offset
+        int low = 0;
+        int high = spanStarts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (spanStarts[mid].getOffset() <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        for (int i = high; i >= 0 && maxEnds[category][i].getOffset() > offset; i--) {
+            if (ends[category][i].getOffset() > offset) { return spanStarts[i].getOffset(); }
+        }
+        return -1;
+    }
+
+    /**
+     * Check whether a position is inside an error of a category
+     * @param category - the error category
+     * @param offset - the position in the editor
+     * @return true if so
+     */
+    boolean contains(int category, int offset) { return find(category, offset) >= 0; }
+
+    /**
+     * Find the first category with an error at a position
+     * @param offset - the position in the editor
+     * @return the category, or -1 if there is no error there
+     */
+    int findCategory(int offset) {
+        for (int category = 0; category < CATEGORY_COUNT; category++) {
+            if (contains(category, offset)) { return category; }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove every span
+     */
+    void clear() {
+        for (int category = 0; category < CATEGORY_COUNT; category++) {
+            starts[category] = EMPTY;
+            ends[category] = EMPTY;
+            maxEnds[category] = EMPTY;
+        }
+    }
+
+}
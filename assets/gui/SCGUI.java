@@ -4,7 +4,9 @@ import assets.freqanalysis.AuthorIdentifier;
 import assets.freqanalysis.StatisticalAnalyzer;
 import assets.freqanalysis.WorkProfile;
 import assets.general.*;
+import assets.parsing.LexicalSnapshot;
 import assets.spellcheck.EnhancedSpellCheck;
+import assets.spellcheck.MisspelledWordMap;
 import org.clapper.util.misc.FileHashMap;
 import org.clapper.util.misc.ObjectExistsException;
 import org.clapper.util.misc.VersionMismatchException;
@@ -12,18 +14,22 @@ import org.languagetool.JLanguageTool;
 import org.languagetool.language.AmericanEnglish;
 
 import javax.swing.*;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
 import javax.swing.text.Highlighter;
+import javax.swing.text.Segment;
 import java.awt.*;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -62,9 +68,14 @@ public class SCGUI {
 
     // StyleCheck settings
     public static final int MAX_REPLACEMENTS = 3;      // Max number of total replacements
+    public static final int LIVE_CHECK_DELAY = 400;    // Typing pause (ms) before a live check
+    public static final int PREFETCH_DELAY = 250;      // Scroll/caret pause (ms) before prefetching
+    public static final int PREFETCH_MARGIN = 2000;    // Characters around the caret to prefetch
+    public static final int PREFETCH_LIMIT = 24;       // Max synonym lookups per prefetch
 
     // Essential GUI components
     private SCSplashScreen splashScreen;               // Splash screen
+    private SCBootstrap bootstrap;                     // Loads resources in the background
     private SCFrame frame;                             // Main window
     private JSplitPane splitPane;                      // The split pane component
     private JTextArea editorTextArea;                  // Text area for editor
@@ -104,18 +115,26 @@ public class SCGUI {
     private AuthorIdentifier authorIdentifier;         // For finding similar authors
     private SynonymSearch synonymSearch;               // WordNet synonyms
     private WorkProfile documentProfile;               // This document's WorkProfile
+    private SCAnalysisScheduler scheduler;             // Runs analysis off the EDT
+    private SCDirtyRegionTracker dirtyRegions;         // Text changed since the last results
+    private SCErrorIndex errorIndex;                   // Error spans for caret lookups
+    private SCHighlightManager highlights;             // Error highlights by category
+    private Timer liveCheckTimer;                      // Debounces live checks
+    private Timer prefetchTimer;                       // Debounces synonym prefetches
+    private SCSynonymResolver synonymResolver;         // On-demand style suggestions
+    private Map<String, List<String>> styleFlags;  // Last flagged words to their rules, or null
 
     private Map<String, String> spellingIgnore;    // Words to ignore in spell check
     private HashMap<String, String> grammarIgnore;     // Grammar rules to ignore
     private Map<String, String> styleIgnore;       // Style rules to ignore
 
     // Error instances to ignore
-    private Map<Integer, Integer> ignoredErrors;   // Individually ignored errors
+    private SCErrorAnchors<Integer> ignoredErrors;     // Individually ignored errors
 
-    // Maps of errors to suggested replacements
-    private HashMap<Integer, LinkedList<String>> spellingCorrections;
-    private HashMap<Integer, LinkedList<String>> grammarCorrections;
-    private HashMap<Integer, LinkedList<String>> styleCorrections;
+    // Errors anchored in the editor to suggested replacements
+    private SCErrorAnchors<LinkedList<String>> spellingCorrections;
+    private SCErrorAnchors<LinkedList<String>> grammarCorrections;
+    private SCErrorAnchors<LinkedList<String>> styleCorrections;
 
     // Session information
     private String clipBoard;                          // Used for cut/copy/paste
@@ -127,8 +146,12 @@ public class SCGUI {
     private SCGUI() throws IOException, ObjectExistsException,
             VersionMismatchException, ClassNotFoundException {
 
-        // Display a splash screen during loading
-        showSplashScreen(SCSplashScreen.LOADING_TEXT);
+        // Display a splash screen with the progress of each resource
+        bootstrap = new SCBootstrap(SCBootstrap.TAGGER, SCBootstrap.LANGUAGE_TOOL,
+                SCBootstrap.DICTIONARY, SCBootstrap.WIKIPEDIA, SCBootstrap.NGRAMS,
+                SCBootstrap.WORDNET, SCBootstrap.AUTHORS, SCBootstrap.TAGGING_THREADS);
+        showSplashScreen(SCSplashScreen.LOADING_TEXT, bootstrap.getResources());
+        bootstrap.addListener(splashScreen::setResourceState);
 
         // Get recently opened files
         try {
@@ -145,22 +168,29 @@ public class SCGUI {
         initalizeGUIComponents();
         initializeStyleCheckComponents();
 
-        // Make the GUI visible and destroy the splash screen
-        splashScreen.closeSplashScreen();
+        // Make the GUI visible now, and destroy the splash screen once loading finishes
         frame.setVisible(true);
+        splashScreen.toFront();
+        bootstrap.whenFinished(splashScreen::closeSplashScreen);
     }
 
     /**
      * Create the splash screen for display while application loads
+     * @param message - the message to show
+     * @param resources - the resources to show progress for
      */
-    private void showSplashScreen(String message) {
-        splashScreen = new SCSplashScreen(message);
+    private void showSplashScreen(String message, List<String> resources) {
+        splashScreen = new SCSplashScreen(message, resources);
     }
 
     /**
-     * Close the recently opened files map before exiting
+     * Close the recently opened files map and stop the spell checker's
+     * threads before exiting
      */
     public void closeMaps() {
+        if (spellCheck != null) {
+            spellCheck.close();
+        }
         try {
             recentlyOpenedByName.close();
             recentlyOpenedByTime.close();
@@ -173,6 +203,14 @@ public class SCGUI {
      * Initialize the GUI components
      */
     private void initalizeGUIComponents() {
+        scheduler = new SCAnalysisScheduler();          // Background analysis
+        dirtyRegions = new SCDirtyRegionTracker();      // Edits since the last check
+        errorIndex = new SCErrorIndex();                // Spans of the highlighted errors
+        liveCheckTimer = new Timer(LIVE_CHECK_DELAY, e -> liveCheckDocument());
+        liveCheckTimer.setRepeats(false);
+        prefetchTimer = new Timer(PREFETCH_DELAY, e -> prefetchSynonyms());
+        prefetchTimer.setRepeats(false);
+
         frame = new SCFrame();                          // The main window
         SCMenu menu = new SCMenu(this);
 
@@ -188,6 +226,12 @@ public class SCGUI {
         splitPane.setResizeWeight(PANEL_WEIGHT);
 
         initializeHighlighters();                        // The editorHighlighter
+        highlights = new SCHighlightManager(editorTextArea, editorHighlighter,
+                spellingPainter, grammarPainter, stylePainter);
+        editorPane.getViewport().addChangeListener(e -> {
+            highlights.updateViewport();
+            prefetchTimer.restart();
+        });
         optionPane = new JOptionPane(APP_TITLE);        // For dialog boxes
 
         // Attach components together and to GUI
@@ -201,35 +245,127 @@ public class SCGUI {
     }
 
     /**
-     * Initialize the StyleCheck resources and components
+     * Initialize the StyleCheck components and start loading their
+     * resources in the background. Each component is set on the EDT
+     * once its resources are loaded; until then the features that need
+     * it say so, or run without it where they can.
      */
-    private void initializeStyleCheckComponents() throws IOException, ObjectExistsException,
-            VersionMismatchException, ClassNotFoundException {
-
-        // Initialize sub-components tagger and language tool
+    private void initializeStyleCheckComponents() {
         documentProfile = null;
-        POSTagger tagger = new POSTagger();
-        JLanguageTool languageTool = new JLanguageTool(new AmericanEnglish());
-        languageTool.activateDefaultPatternRules();
 
         // Initialize ignore lists for errors
-        ignoredErrors = new HashMap<>();
+        ignoredErrors = new SCErrorAnchors<>(editorTextArea);
         spellingIgnore = new HashMap<>();
         grammarIgnore = new HashMap<>();
         styleIgnore = new HashMap<>();
 
-        // Initialize spell check and multiple dictionaries
-        spellCheck = new EnhancedSpellCheck(tagger, languageTool);
+        // Set up error suggestion maps
+        spellingCorrections = new SCErrorAnchors<>(editorTextArea);
+        grammarCorrections = new SCErrorAnchors<>(editorTextArea);
+        styleCorrections = new SCErrorAnchors<>(editorTextArea);
+        synonymResolver = new SCSynonymResolver(scheduler, this::lookUpSynonyms, this::getSentenceAt);
+
+        // Load the independent resources in parallel
+        Executor onEDT = SwingUtilities::invokeLater;
+        CompletableFuture<POSTagger> tagger = bootstrap.load(SCBootstrap.TAGGER, POSTagger::new);
+        CompletableFuture<JLanguageTool> languageTool = bootstrap.load(SCBootstrap.LANGUAGE_TOOL, () -> {
+            JLanguageTool lt = new JLanguageTool(new AmericanEnglish());
+            lt.activateDefaultPatternRules();
+            return lt;
+        });
+        CompletableFuture<EnglishDictionary> dictionary
+                = bootstrap.load(SCBootstrap.DICTIONARY, EnglishDictionary::new);
+        CompletableFuture<MisspelledWordMap> wikiMap = bootstrap.load(SCBootstrap.WIKIPEDIA,
+                () -> LexicalSnapshot.getSnapshot().getWikipediaMap());
+        CompletableFuture<NGramLM> nGrams = bootstrap.load(SCBootstrap.NGRAMS, NGramLM::new);
+        bootstrap.load(SCBootstrap.WORDNET, SynonymSearch::new)
+                .thenAcceptAsync(search -> synonymSearch = search, onEDT);
+        bootstrap.load(SCBootstrap.AUTHORS, AuthorIdentifier::new)
+                .thenAcceptAsync(identifier -> authorIdentifier = identifier, onEDT);
+
+        // Spell check and statistical analysis share the tagger and language tool
+        CompletableFuture<EnhancedSpellCheck> checker = tagger.thenCombine(languageTool, (t, lt) -> {
+            try {
+                EnhancedSpellCheck check = new EnhancedSpellCheck(t, lt, false);
+                StatisticalAnalyzer stats = new StatisticalAnalyzer(t, lt);
+                SwingUtilities.invokeLater(() -> {
+                    spellCheck = check;
+                    analyzer = stats;
+                });
+                return check;
+            } catch (IOException e) {
+                System.err.println("Uh oh! Could not start the spell checker: " + e);
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        // Extra tagger models for parallel tagging load once the first is in;
+        // if they can't be loaded, tagging stays serial
+        bootstrap.load(SCBootstrap.TAGGING_THREADS, tagger, t -> {
+            t.setTaggingThreads(POSTagger.DEFAULT_TAGGING_THREADS);
+            return t;
+        });
 
-        // Initialize statistical analysis features
-        analyzer = new StatisticalAnalyzer(tagger, languageTool);
-        authorIdentifier = new AuthorIdentifier();
-        synonymSearch = new SynonymSearch();
+        // The corpora are handed to the spell checker as they arrive, between checks
+        checker.thenAcceptBoth(dictionary, (check, d) ->
+                handOver(SCBootstrap.DICTIONARY, () -> check.setDictionary(d)));
+        checker.thenAcceptBoth(wikiMap, (check, map) ->
+                handOver(SCBootstrap.WIKIPEDIA, () -> check.setWikipediaMap(map)));
+        checker.thenAcceptBoth(nGrams, (check, lm) ->
+                handOver(SCBootstrap.NGRAMS, () -> check.setNGramModel(lm)));
+    }
 
-        // Set up error suggestion maps
-        spellingCorrections = new HashMap<>();
-        grammarCorrections = new HashMap<>();
-        styleCorrections = new HashMap<>();
+    /**
+     * Hand a loaded resource to a component on the analysis thread, so it
+     * never changes (or clears caches) in the middle of a check
+     * @param resource - the resource name, for error messages
+     * @param action - sets the resource
+     */
+    private void handOver(String resource, Runnable action) {
+        SwingUtilities.invokeLater(() -> scheduler.enqueue("Handing over the " + resource,
+                publisher -> action.run()));
+    }
+
+    /**
+     * Check whether a feature's components have loaded, and if not tell
+     * the user which resources it is waiting for
+     * @param feature - the feature name for the message
+     * @param ready - true if the feature can run
+     * @param resources - the resources the feature needs
+     * @return the value of ready
+     */
+    private boolean checkReady(String feature, boolean ready, String... resources) {
+        if (ready) { return true; }
+        List<String> missing = bootstrap.getMissing(resources);
+        boolean failed = missing.stream()
+                .anyMatch(resource -> bootstrap.getState(resource) == SCBootstrap.FAILED);
+        if (missing.isEmpty()) {
+            infoTextArea.setText(feature + " will be available in a moment.");
+        } else if (failed) {
+            infoTextArea.setText(feature + " is unavailable because some resources could not be loaded: "
+                    + String.join(", ", missing));
+        } else {
+            infoTextArea.setText(feature + " will be available once these have loaded: "
+                    + String.join(", ", missing));
+        }
+        return false;
+    }
+
+    /**
+     * Check whether spell checking can run: it needs the spell checker
+     * and its dictionary, but not yet the n-gram model or Wikipedia map
+     * @return true if so
+     */
+    private boolean isSpellCheckReady() {
+        return spellCheck != null && spellCheck.getDict() != null;
+    }
+
+    /**
+     * Check whether style suggestions can be looked up
+     * @return true if so
+     */
+    private boolean isSynonymLookupReady() {
+        return isSpellCheckReady() && synonymSearch != null;
     }
 
     /**
@@ -307,40 +443,58 @@ public class SCGUI {
         area.setFont(DEFAULT_EDITOR_FONT);
 
         // Add a document listener to fire on text changes
-        area.getDocument().addDocumentListener(new DocumentListener() {
+        DocumentListener editListener = new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
                 unsavedChanges = true;
+                dirtyRegions.insert(e.getOffset(), e.getLength());
+                scheduleLiveCheck();
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
                 unsavedChanges = true;
+                dirtyRegions.remove(e.getOffset(), e.getLength());
+                scheduleLiveCheck();
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
                 unsavedChanges = true;
             }
+        };
+        area.getDocument().addDocumentListener(editListener);
+
+        // Opening a file replaces the document, so move the listener across
+        area.addPropertyChangeListener("document", e -> {
+            if (e.getOldValue() != null) {
+                ((Document) e.getOldValue()).removeDocumentListener(editListener);
+            }
+            if (e.getNewValue() != null) {
+                ((Document) e.getNewValue()).addDocumentListener(editListener);
+            }
         });
 
         // Add a caret listener to fire on caret changes
         area.addCaretListener(e -> {
-            if (highlightsOn && isCaretInError()) {
-                String word = getSurroundingWord(editorTextArea.getCaretPosition());
-                int errorPos = getStartOfWord(editorTextArea.getCaretPosition());
+            prefetchTimer.restart();
+            int caretPos = e.getDot();
+            int category = highlightsOn ? errorIndex.findCategory(caretPos) : -1;
+            if (category >= 0) {
+                String word = getSurroundingWord(caretPos);
+                int errorPos = errorIndex.find(category, caretPos);
 
                 // Clicked on a spelling error
-                if (isCaretInSpellingError()) {
+                if (category == SCErrorIndex.SPELLING) {
                     showReplacementDialog(word, spellingCorrections.get(errorPos), errorPos, false);
 
                 // Clicked on a grammar error
-                } else if (isCaretInGrammarError()) {
+                } else if (category == SCErrorIndex.GRAMMAR) {
                     showReplacementDialog(word, grammarCorrections.get(errorPos), errorPos, false);
 
                 // Clicked on a style error
-                } else if (isCaretInStyleError()) {
-                    showReplacementDialog(word, styleCorrections.get(errorPos), errorPos, true);
+                } else if (category == SCErrorIndex.STYLE) {
+                    showStyleSuggestions(word, errorPos);
 
                 } else {
                     throw new IllegalComponentStateException();
@@ -386,7 +540,6 @@ public class SCGUI {
                 JButton replaceButton = new JButton(SCStringFormat.getQuotedString(replacement));
                 replaceButton.addActionListener(e -> {
                     doReplacement(word, replacement, errorPos);
-                    rehighlight();
                     dialog.setVisible(false);
                 });
                 replaceButton.setVisible(true);
@@ -445,9 +598,6 @@ public class SCGUI {
      * Refresh the highlights
      */
     private void rehighlight() {
-        unHighlightSpellingErrors();
-        unHighlightGrammarErrors();
-        unHighlightStyleErrors();
         highlightSpellingErrors();
         highlightGrammarErrors();
         highlightStyleErrors();
@@ -458,7 +608,7 @@ public class SCGUI {
      * @return the word count
      */
     public int wordCountDocument(boolean print) {
-        int wc = SCStringFormat.getAllWordsAndPositions(editorTextArea.getText()).size();
+        int wc = SCStringFormat.getAllWordsAndPositions(getDocumentText()).size();
 
         if (print) {
             optionPane.setMessage("Word Count: " + wc);
@@ -476,97 +626,63 @@ public class SCGUI {
      * @param errorPos - the error position
      */
     private void doReplacement(String word, String replacement, int errorPos) {
-        unHighlightSpellingErrors();
-        unHighlightGrammarErrors();
-        unHighlightStyleErrors();
+        int endPos = errorPos + word.length();
 
         // Remove from error lists
-        if (spellingCorrections.containsKey(errorPos)) {
-            spellingCorrections.remove(errorPos);
-        }
-        if (grammarCorrections.containsKey(errorPos)) {
-            grammarCorrections.remove(errorPos);
-        }
-        if (styleCorrections.containsKey(errorPos)) {
-            styleCorrections.remove(errorPos);
-        }
-        if (ignoredErrors.containsKey(errorPos)) {
-            ignoredErrors.remove(errorPos);
-        }
-
-        // Adjust highlight and error positions
-        adjustForReplacement(word, replacement, errorPos);
+        spellingCorrections.remove(errorPos);
+        grammarCorrections.remove(errorPos);
+        styleCorrections.remove(errorPos);
+        ignoredErrors.remove(errorPos);
 
-        // Replace the text
-        editorTextArea.setText(editorTextArea.getText().substring(0, errorPos)
-                + replacement + editorTextArea.getText().substring(errorPos
-                + word.length(), editorTextArea.getText().length()));
+        // Only highlights over the replaced text change; later ones are anchored
+        highlights.removeOverlapping(errorPos, endPos);
 
-        // Re-highlight other errors
-        highlightSpellingErrors();
-        highlightGrammarErrors();
-        highlightStyleErrors();
+        // Replace just the word in the document, keeping scroll position and undo history
+        editorTextArea.replaceRange(replacement, errorPos, endPos);
     }
 
     /**
-     * Adjust all error positions for a given replacement happening
-     * @param word - the word to replace
-     * @param replacement - the replacement word
-     * @param errorPos - the position of the error in the document
+     * Get a read-only view of the editor text without copying it into a
+     * String. Only valid on the EDT until the next edit.
+     * @return the editor text
      */
-    private void adjustForReplacement(String word, String replacement, int errorPos) {
-        adjustErrorPositions(SCStringFormat
-                .getPositionAdjustment(word, replacement), errorPos);
+    private CharSequence getDocumentText() {
+        Document document = editorTextArea.getDocument();
+        Segment segment = new Segment();
+        try {
+            document.getText(0, document.getLength(), segment);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+        return segment;
     }
 
     /**
-     * Adjust the positions of all errors after a given error
-     * @param offset - the amount to adjust by (may be negative)
-     * @param errorPos - the position of the error causing adjustment
+     * Find a character in a view of the editor text
+     * @param text - the text
+     * @param c - the character
+     * @param from - the offset to search from
+     * @return the offset of the character, or -1 if it does not occur
      */
-    private void adjustErrorPositions(int offset, int errorPos) {
-
-        // Because these can't be modified concurrently
-        Collection<Integer> adjustments = new LinkedList<>();
-        LinkedList<String> currCorrections;
-
-        // Spelling corrections
-        adjustments.addAll(spellingCorrections.keySet().stream()
-                .filter(pos -> pos > errorPos).collect(Collectors.toList()));
-        for (Integer pos : adjustments) {
-            currCorrections = spellingCorrections.get(pos);
-            spellingCorrections.remove(pos);
-            spellingCorrections.put(pos - offset, currCorrections);
-        }
-
-        // Grammar corrections
-        adjustments.clear();
-        adjustments.addAll(grammarCorrections.keySet().stream()
-                .filter(pos -> pos > errorPos).collect(Collectors.toList()));
-        for (Integer pos : adjustments) {
-            currCorrections = grammarCorrections.get(pos);
-            grammarCorrections.remove(pos);
-            grammarCorrections.put(pos - offset, currCorrections);
-        }
-
-        // Style corrections
-        adjustments.clear();
-        adjustments.addAll(styleCorrections.keySet().stream()
-                .filter(pos -> pos > errorPos).collect(Collectors.toList()));
-        for (Integer pos : adjustments) {
-            currCorrections = styleCorrections.get(pos);
-            styleCorrections.remove(pos);
-            styleCorrections.put(pos - offset, currCorrections);
+    private static int indexOf(CharSequence text, char c, int from) {
+        for (int i = Math.max(from, 0); i < text.length(); i++) {
+            if (text.charAt(i) == c) { return i; }
         }
+        return -1;
+    }
 
-        // Ignored errors
-        adjustments.clear();
-        adjustments.addAll(ignoredErrors.keySet().stream()
-                .filter(pos -> pos > errorPos).collect(Collectors.toList()));
-        for (Integer pos : adjustments) {
-            ignoredErrors.remove(pos);
-            ignoredErrors.put(pos - offset, pos + offset);
+    /**
+     * Find the last occurrence of a character in a view of the editor text
+     * @param text - the text
+     * @param c - the character
+     * @param from - the offset to search back from
+     * @return the offset of the character, or -1 if it does not occur
+     */
+    private static int lastIndexOf(CharSequence text, char c, int from) {
+        for (int i = Math.min(from, text.length() - 1); i >= 0; i--) {
+            if (text.charAt(i) == c) { return i; }
         }
+        return -1;
     }
 
     /**
@@ -575,15 +691,15 @@ public class SCGUI {
      * @return the word
      */
     String getSurroundingWord(int position) {
-        if (position < 0 || position >= editorTextArea.getText().length()) {
+        CharSequence text = getDocumentText();
+        if (position < 0 || position >= text.length()) {
             throw new IllegalArgumentException("Position out of range.");
         }
 
         int startPos = getStartOfWord(position);
-        int endPos = SCStringFormat.getEndOfCurrentWord(
-                editorTextArea.getText(), position);
+        int endPos = SCStringFormat.getEndOfCurrentWord(text, position);
         if (endPos <= startPos || endPos < 0 || startPos < 0) { return ""; }
-        return editorTextArea.getText().substring(startPos, endPos).trim();
+        return text.subSequence(startPos, endPos).toString().trim();
     }
 
     /**
@@ -592,18 +708,17 @@ public class SCGUI {
      * @return the start position
      */
     int getStartOfWord(int position) {
+        CharSequence text = getDocumentText();
+        int lastDelimPos = Math.min(position, text.length() - 1);
+        while (lastDelimPos > 0 && text.charAt(lastDelimPos) != EnhancedSpellCheck.WORD_DELIM
+                && text.charAt(lastDelimPos) != EnhancedSpellCheck.SENTENCE_DELIM) {
+            lastDelimPos--;
+        }
         if (SCGUI.DEBUG_FINE) {
-            System.out.println("Got word at position: " + (Math.max(editorTextArea.getText()
-                            .lastIndexOf(EnhancedSpellCheck.WORD_DELIM, position),
-                            editorTextArea.getText().lastIndexOf(
-                            EnhancedSpellCheck.SENTENCE_DELIM, position)) + 1));
+            System.out.println("Got word at position: " + (lastDelimPos + 1));
         }
-        int lastDelimPos = Math.max(editorTextArea.getText()
-                        .lastIndexOf(EnhancedSpellCheck.WORD_DELIM, position),
-                        editorTextArea.getText().lastIndexOf(
-                        EnhancedSpellCheck.SENTENCE_DELIM, position));
-        while (!Character.isLetterOrDigit(editorTextArea.getText().charAt(lastDelimPos))
-                && lastDelimPos < editorTextArea.getText().length() - 1) {
+        while (lastDelimPos >= 0 && !Character.isLetterOrDigit(text.charAt(lastDelimPos))
+                && lastDelimPos < text.length() - 1) {
             lastDelimPos++;
         }
         return lastDelimPos;
@@ -618,38 +733,309 @@ public class SCGUI {
     }
 
     /**
-     * Spell check the document
+     * Spell check the document in the background
      */
-    public void spellCheckDocument(boolean spellingOnly) throws IOException {
-        spellingCorrections.clear();
-        unHighlightSpellingErrors();
-        grammarCorrections.clear();
-        unHighlightGrammarErrors();
+    public void spellCheckDocument(boolean spellingOnly) {
+        if (!checkReady("Spell check", isSpellCheckReady(), SCBootstrap.TAGGER,
+                SCBootstrap.LANGUAGE_TOOL, SCBootstrap.DICTIONARY)) { return; }
+        String text = editorTextArea.getText();
+        HashMap<String, String> ignoredRules = new HashMap<>(grammarIgnore);
+        scheduler.submit("Spell check", publisher
+                -> checkSpellingAndGrammar(text, ignoredRules, spellingOnly, publisher),
+                () -> spellCheckDocument(spellingOnly));
+    }
 
-        spellingCorrections = spellCheck.checkSpelling(editorTextArea.getText());
-        grammarCorrections = spellCheck.checkGrammar(
-                editorTextArea.getText(), grammarIgnore);
+    /**
+     * Spell, grammar and style check the document in the background
+     */
+    public void checkAllDocument() {
+        if (!checkReady("Checking", isSpellCheckReady() && analyzer != null, SCBootstrap.TAGGER,
+                SCBootstrap.LANGUAGE_TOOL, SCBootstrap.DICTIONARY)) { return; }
+        String text = editorTextArea.getText();
+        HashMap<String, String> ignoredRules = new HashMap<>(grammarIgnore);
+        Map<String, String> ignoredStyles = new HashMap<>(styleIgnore);
+        scheduler.submit("Full check", publisher -> {
+            checkSpellingAndGrammar(text, ignoredRules, false, publisher);
+            checkStyle(text, ignoredStyles, false, publisher);
+        }, this::checkAllDocument);
+    }
 
-        Iterable<Integer> overlap = grammarCorrections.keySet().stream()
-                .filter(spellingCorrections::containsKey)
-                .collect(Collectors.toCollection(LinkedList::new));
-        overlap.forEach(grammarCorrections::remove);
+    /**
+     * Spell and grammar check a snapshot of the document. Runs on the
+     * analysis thread; spelling errors are shown before grammar is checked.
+     * @param text - the document text
+     * @param ignoredRules - the grammar rules to ignore
+     * @param spellingOnly - true if the info panel should only show spelling/grammar
+     * @param publisher - receives the updates for the EDT
+     * @throws IOException
+     * @throws InterruptedException if cancelled
+     */
+    private void checkSpellingAndGrammar(String text, HashMap<String, String> ignoredRules,
+                                         boolean spellingOnly, SCAnalysisScheduler.Publisher publisher)
+            throws IOException, InterruptedException {
+
+        HashMap<Integer, LinkedList<String>> spelling = spellCheck.checkSpelling(text);
+        publisher.publish(() -> {
+            grammarCorrections.clear();
+            unHighlightGrammarErrors();
+            spellingCorrections.setAll(spelling);
+            highlightSpellingErrors();
+        });
 
-        highlightSpellingErrors();
-        highlightGrammarErrors();
+        HashMap<Integer, LinkedList<String>> grammar = spellCheck.checkGrammar(text, ignoredRules);
+        grammar.keySet().removeIf(spelling::containsKey);
+        publisher.publish(() -> {
+            grammarCorrections.setAll(grammar);
+            highlightGrammarErrors();
+
+            if (spellingOnly) {
+                infoTextArea.setText(SCPanelSuggestions.getPanelSpellingGrammarString(
+                        spellingCorrections.size(), grammarCorrections.size()));
+            }
+            highlightInfoPanel();
+        });
+    }
+
+    /**
+     * Cancel any live check or check made stale by the edit, and restart
+     * the live check countdown
+     */
+    private void scheduleLiveCheck() {
+        scheduler.interrupt();
+        liveCheckTimer.restart();
+    }
+
+    /**
+     * Re-check the parts of the document changed since the last results.
+     * Only the sentences around the edits are copied out of the editor and
+     * analyzed; spelling and grammar findings outside them are kept at
+     * their anchored offsets. Once the document has been style checked,
+     * the document is profiled again so newly overused words are found;
+     * if the flagged words change, style is re-checked everywhere, and
+     * otherwise only in the edited sentences. A check the user started
+     * that was interrupted by the edits is run again instead, and a live
+     * check waits for any other analysis to finish. Only runs once the
+     * user has checked the document.
+     */
+    private void liveCheckDocument() {
+        Runnable rerun = scheduler.takeInterrupted();
+        if (rerun != null) {
+            rerun.run();
+            return;
+        }
+        if (!highlightsOn) {
+            dirtyRegions.reset();
+            return;
+        }
+        if (!dirtyRegions.isDirty()) { return; }
+        if (scheduler.isBusy()) {
+            liveCheckTimer.restart();
+            return;
+        }
+
+        CharSequence text = getDocumentText();
+        List<int[]> spans = getSentenceSpans(text, dirtyRegions.getDirtyRegions());
+        List<String> spanTexts = new ArrayList<>(spans.size());
+        for (int span[] : spans) { spanTexts.add(text.subSequence(span[0], span[1]).toString()); }
+        HashMap<String, String> ignoredRules = new HashMap<>(grammarIgnore);
+        Map<String, String> ignoredStyles = new HashMap<>(styleIgnore);
+        Map<String, List<String>> lastFlags = styleFlags;
+        String document = lastFlags != null ? text.toString() : null;
+
+        // Keep the findings that were not touched by the edits
+        HashMap<Integer, LinkedList<String>> keptSpelling = getOutsideSpans(spellingCorrections, spans);
+        HashMap<Integer, LinkedList<String>> keptGrammar = getOutsideSpans(grammarCorrections, spans);
+        HashMap<Integer, LinkedList<String>> keptStyle = getOutsideSpans(styleCorrections, spans);
+
+        scheduler.submitLive("Live check", publisher -> {
+            HashMap<Integer, LinkedList<String>> spelling = new HashMap<>();
+            HashMap<Integer, LinkedList<String>> grammar = new HashMap<>();
+            HashMap<Integer, LinkedList<String>> style = new HashMap<>();
+
+            // Unchanged sentences are already in the tag cache, so this is cheap
+            Map<String, List<String>> flags = null;
+            if (document != null) {
+                analyzer.profiler.clear();
+                analyzer.profiler.analyzeSample(document);
+                SCAnalysisScheduler.checkCancelled();
+                flags = getFlaggedWords();
+            }
+            boolean restyle = flags != null && !flags.equals(lastFlags);
+
+            for (int i = 0; i < spans.size(); i++) {
+                String spanText = spanTexts.get(i);
+                int offset = spans.get(i)[0];
+                HashMap<Integer, LinkedList<String>> spanSpelling = spellCheck.checkSpelling(spanText);
+                HashMap<Integer, LinkedList<String>> spanGrammar
+                        = spellCheck.checkGrammar(spanText, ignoredRules);
+                spanGrammar.keySet().removeIf(spanSpelling::containsKey);
+                addAtOffset(spanSpelling, offset, spelling);
+                addAtOffset(spanGrammar, offset, grammar);
+                if (flags != null && !restyle) {
+                    addAtOffset(findStyleErrors(spanText, flags, ignoredStyles), offset, style);
+                }
+                SCAnalysisScheduler.checkCancelled();
+            }
+            spelling.putAll(keptSpelling);
+            grammar.putAll(keptGrammar);
+            if (restyle) {
+                style.putAll(findStyleErrors(document, flags, ignoredStyles));
+            } else {
+                style.putAll(keptStyle);
+            }
+
+            // Apply everything at once so the maps always share one baseline
+            Map<String, List<String>> newFlags = flags;
+            publisher.publish(() -> {
+                dirtyRegions.reset();
+                if (newFlags != null) { styleFlags = newFlags; }
+                spellingCorrections.setAll(spelling);
+                grammarCorrections.setAll(grammar);
+                styleCorrections.setAll(style);
+                rehighlight();
+                if (restyle) { prefetchTimer.restart(); }
+            });
+        });
+    }
+
+    /**
+     * Expand changed regions to the sentences containing them, split as
+     * LanguageTool splits them for the grammar check. Only the paragraphs
+     * around the regions are split, as no sentence runs across a blank line.
+     * @param text - the document text
+     * @param regions - the sorted changed regions
+     * @return the sorted, merged {start, end} sentence spans
+     */
+    private List<int[]> getSentenceSpans(CharSequence text, List<int[]> regions) {
+        List<int[]> spans = new ArrayList<>();
+        for (int region[] : regions) {
+            int start = Math.min(region[0], text.length());
+            int end = Math.min(region[1], text.length());
+            int paragraphStart = getParagraphStart(text, start);
+            String paragraph = text.subSequence(paragraphStart, getParagraphEnd(text, end)).toString();
+
+            // Take every sentence the region touches, relative to the paragraph
+            int from = start - paragraphStart;
+            int to = end - paragraphStart;
+            for (int sentence[] : spellCheck.getSentenceSpans(paragraph)) {
+                if (sentence[0] <= to && sentence[1] >= from) {
+                    start = Math.min(start, paragraphStart + sentence[0]);
+                    end = Math.max(end, paragraphStart + sentence[1]);
+                }
+            }
+            if (!spans.isEmpty() && spans.get(spans.size() - 1)[1] >= start) {
+                spans.get(spans.size() - 1)[1] = Math.max(end, spans.get(spans.size() - 1)[1]);
+            } else {
+                spans.add(new int[] { start, end });
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * Find the sentence containing an offset, split as LanguageTool splits
+     * the whole document, so it matches the sentences the profiler tags.
+     * Only the paragraph around the offset is split; its last sentence
+     * takes the whitespace after it, as it does when the whole document
+     * is split.
+     * @param text - the document text
+     * @param position - the offset
+     * @return the {start, end} sentence span
+     */
+    private int[] getSentenceAt(CharSequence text, int position) {
+        int paragraphStart = getParagraphStart(text, position);
+        int paragraphEnd = getParagraphEnd(text, position);
+        String paragraph = text.subSequence(paragraphStart, paragraphEnd).toString();
+        int start = paragraphStart;
+        int end = paragraphEnd;
+        for (int sentence[] : spellCheck.getSentenceSpans(paragraph)) {
+            if (paragraphStart + sentence[1] > position) {
+                start = paragraphStart + sentence[0];
+                end = paragraphStart + sentence[1];
+                break;
+            }
+        }
+        if (end == paragraphEnd) {
+            while (end < text.length() && Character.isWhitespace(text.charAt(end))) { end++; }
+        }
+        return new int[] { start, end };
+    }
+
+    /**
+     * Find the start of the paragraph containing an offset, just after
+     * the blank line before it
+     * @param text - the document text
+     * @param from - the offset
+     * @return the paragraph start
+     */
+    private static int getParagraphStart(CharSequence text, int from) {
+        int newline = lastIndexOf(text, '\n', from - 1);
+        while (newline > 0 && text.charAt(newline - 1) != '\n') {
+            newline = lastIndexOf(text, '\n', newline - 1);
+        }
+        return newline + 1;
+    }
+
+    /**
+     * Find the end of the paragraph containing an offset, at the blank
+     * line after it
+     * @param text - the document text
+     * @param from - the offset
+     * @return the paragraph end (exclusive)
+     */
+    private static int getParagraphEnd(CharSequence text, int from) {
+        int newline = indexOf(text, '\n', from);
+        while (newline >= 0 && newline + 1 < text.length() && text.charAt(newline + 1) != '\n') {
+            newline = indexOf(text, '\n', newline + 1);
+        }
+        return newline < 0 || newline + 1 >= text.length() ? text.length() : newline;
+    }
+
+    /**
+     * Copy the findings that lie outside a list of spans
+     * @param findings - the anchored findings
+     * @param spans - the sorted {start, end} spans
+     * @return the findings outside the spans, by current offset
+     */
+    private static HashMap<Integer, LinkedList<String>> getOutsideSpans(
+            SCErrorAnchors<LinkedList<String>> findings, List<int[]> spans) {
+        HashMap<Integer, LinkedList<String>> outside = new HashMap<>();
+        findings.forEach((pos, suggestions) -> {
+            if (!isInSpans(spans, pos)) { outside.put(pos, suggestions); }
+        });
+        return outside;
+    }
+
+    /**
+     * Add span-relative findings to a document map
+     * @param found - the findings, by offset within the span
+     * @param offset - the span's start in the document
+     * @param into - the document map to add to
+     */
+    private static void addAtOffset(Map<Integer, LinkedList<String>> found, int offset,
+                                    Map<Integer, LinkedList<String>> into) {
+        found.forEach((pos, suggestions) -> into.put(pos + offset, suggestions));
+    }
 
-        if (spellingOnly) {
-            infoTextArea.setText(SCPanelSuggestions.getPanelSpellingGrammarString(
-                    spellingCorrections.size(), grammarCorrections.size()));
+    /**
+     * Check whether an offset lies in any of a list of spans
+     * @param spans - the sorted {start, end} spans
+     * @param position - the offset
+     * @return true if the offset is inside a span
+     */
+    private static boolean isInSpans(List<int[]> spans, int position) {
+        for (int span[] : spans) {
+            if (position >= span[0] && position < span[1]) { return true; }
+            if (position < span[0]) { return false; }
         }
-        highlightInfoPanel();
+        return false;
     }
 
     /**
      * Reset all error info
      */
     void resetErrorInfo() {
-        editorHighlighter.removeAllHighlights();
+        highlights.clearAll();
         unhighlightInfoPanel();
         highlightsOn = false;
 
@@ -663,6 +1049,9 @@ public class SCGUI {
 
         infoTextArea.setText(SCPanelSuggestions.TOO_SHORT_BLURB);
         documentProfile = null;
+        styleFlags = null;
+        dirtyRegions.reset();
+        errorIndex.clear();
     }
 
     /**
@@ -727,77 +1116,69 @@ public class SCGUI {
      * Highlight the given spelling errors
      */
     void highlightSpellingErrors() {
-        unHighlightSpellingErrors();
         highlightsOn = true;
-        for (Integer spellingPos : spellingCorrections.keySet()) {
-            int endPos = SCStringFormat.getEndOfCurrentWord(
-                    editorTextArea.getText(), spellingPos);
+        CharSequence text = getDocumentText();
+        List<Integer> positions = spellingCorrections.getOffsets();
+        errorIndex.setErrors(SCErrorIndex.SPELLING, positions, text,
+                editorTextArea.getDocument(), false);
+        List<int[]> spans = new ArrayList<>(positions.size());
+        for (Integer spellingPos : positions) {
+            int endPos = SCStringFormat.getEndOfCurrentWord(text, spellingPos);
             if (endPos == -1) { continue; }
-            String word = editorTextArea.getText().substring(spellingPos, endPos);
+            String word = text.subSequence(spellingPos, endPos).toString();
             if (!spellCheck.getDict().isUserWord(word)
                     && !spellingIgnore.containsKey(word)
                     && !ignoredErrors.containsKey(spellingPos)) {
-                try {
-                    editorHighlighter.addHighlight(spellingPos,
-                            endPos, spellingPainter);
-                } catch (BadLocationException e) {
-                    e.printStackTrace();
-                }
+                spans.add(new int[] { spellingPos, endPos });
             }
         }
+        highlights.setSpans(SCErrorIndex.SPELLING, spans);
     }
 
     /**
      * Highlight the given grammar errors
      */
     void highlightGrammarErrors() {
-        unHighlightGrammarErrors();
         highlightsOn = true;
-        for (Integer grammarPos : grammarCorrections.keySet()) {
+        CharSequence text = getDocumentText();
+        List<Integer> positions = grammarCorrections.getOffsets();
+        errorIndex.setErrors(SCErrorIndex.GRAMMAR, positions, text,
+                editorTextArea.getDocument(), true);
+        List<int[]> spans = new ArrayList<>(positions.size());
+        for (Integer grammarPos : positions) {
             if (!ignoredErrors.containsKey(grammarPos)) {
-                int endPos = editorTextArea.getText().indexOf(
-                        EnhancedSpellCheck.WORD_DELIM, grammarPos);
-                try {
-                    editorHighlighter.addHighlight(grammarPos,
-                            endPos + 1, grammarPainter);
-                } catch (BadLocationException e) {
-                    e.printStackTrace();
-                }
+                int endPos = indexOf(text, EnhancedSpellCheck.WORD_DELIM, grammarPos);
+                spans.add(new int[] { grammarPos, endPos < 0 ? text.length() : endPos + 1 });
             }
         }
+        highlights.setSpans(SCErrorIndex.GRAMMAR, spans);
     }
 
     /**
      * Highlight the given style errors
      */
     void highlightStyleErrors() {
-        unHighlightStyleErrors();
         highlightsOn = true;
-        for (Integer stylePos : styleCorrections.keySet()) {
+        CharSequence text = getDocumentText();
+        List<Integer> positions = styleCorrections.getOffsets();
+        errorIndex.setErrors(SCErrorIndex.STYLE, positions, text,
+                editorTextArea.getDocument(), false);
+        List<int[]> spans = new ArrayList<>(positions.size());
+        for (Integer stylePos : positions) {
             if (!ignoredErrors.containsKey(stylePos)) {
-                int endPos = editorTextArea.getText().indexOf(
-                        EnhancedSpellCheck.WORD_DELIM, stylePos);
-                try {
-                    editorHighlighter.addHighlight(stylePos,
-                            endPos, stylePainter);
-                } catch (BadLocationException e) {
-                    e.printStackTrace();
-                }
+                int endPos = indexOf(text, EnhancedSpellCheck.WORD_DELIM, stylePos);
+                spans.add(new int[] { stylePos, endPos < 0 ? text.length() : endPos });
             }
         }
+        highlights.setSpans(SCErrorIndex.STYLE, spans);
     }
 
     /**
      * Remove the highlights from spelling errors
      */
     void unHighlightSpellingErrors() {
-        for (Highlighter.Highlight highlight : editorHighlighter.getHighlights()) {
-            if (((DefaultHighlighter.DefaultHighlightPainter) highlight
-                    .getPainter()).getColor().equals(SPELLING_ERROR_COLOR)) {
-                editorHighlighter.removeHighlight(highlight);
-            }
-        }
-        if (editorHighlighter.getHighlights().length == 0) {
+        highlights.clear(SCErrorIndex.SPELLING);
+        if (highlights.isEmpty()) {
             highlightsOn = false;
         }
     }
@@ -806,13 +1187,8 @@ public class SCGUI {
      * Remove the highlights from grammar errors
      */
     void unHighlightGrammarErrors() {
-        for (Highlighter.Highlight highlight : editorHighlighter.getHighlights()) {
-            if (((DefaultHighlighter.DefaultHighlightPainter) highlight
-                    .getPainter()).getColor().equals(GRAMMAR_ERROR_COLOR)) {
-                editorHighlighter.removeHighlight(highlight);
-            }
-        }
-        if (editorHighlighter.getHighlights().length == 0) {
+        highlights.clear(SCErrorIndex.GRAMMAR);
+        if (highlights.isEmpty()) {
             highlightsOn = false;
         }
     }
@@ -821,13 +1197,8 @@ public class SCGUI {
      * Remove the highlights from style errors
      */
     void unHighlightStyleErrors() {
-        for (Highlighter.Highlight highlight : editorHighlighter.getHighlights()) {
-            if (((DefaultHighlighter.DefaultHighlightPainter) highlight
-                    .getPainter()).getColor().equals(STYLE_ERROR_COLOR)) {
-                editorHighlighter.removeHighlight(highlight);
-            }
-        }
-        if (editorHighlighter.getHighlights().length == 0) {
+        highlights.clear(SCErrorIndex.STYLE);
+        if (highlights.isEmpty()) {
             highlightsOn = false;
         }
     }
@@ -837,9 +1208,7 @@ public class SCGUI {
      * @return true if the caret is currently positioned in an error
      */
     boolean isCaretInError() {
-        return isCaretInSpellingError()
-                || isCaretInGrammarError()
-                || isCaretInStyleError();
+        return errorIndex.findCategory(editorTextArea.getCaretPosition()) >= 0;
     }
 
     /**
@@ -847,14 +1216,7 @@ public class SCGUI {
      * @return true if so
      */
     boolean isCaretInSpellingError() {
-        for (Integer wordPos : spellingCorrections.keySet()) {
-            if (editorTextArea.getCaretPosition() >= wordPos && editorTextArea.getCaretPosition()
-                    < Math.min(editorTextArea.getText().indexOf(EnhancedSpellCheck.WORD_DELIM, wordPos),
-                    editorTextArea.getText().indexOf(EnhancedSpellCheck.SENTENCE_DELIM, wordPos))) {
-                return true;
-            }
-        }
-        return false;
+        return errorIndex.contains(SCErrorIndex.SPELLING, editorTextArea.getCaretPosition());
     }
 
     /**
@@ -862,14 +1224,7 @@ public class SCGUI {
      * @return true if so
      */
     boolean isCaretInGrammarError() {
-        for (Integer wordPos : grammarCorrections.keySet()) {
-            if (editorTextArea.getCaretPosition() >= wordPos && editorTextArea.getCaretPosition()
-                    <= Math.min(editorTextArea.getText().indexOf(EnhancedSpellCheck.WORD_DELIM, wordPos),
-                    editorTextArea.getText().indexOf(EnhancedSpellCheck.SENTENCE_DELIM, wordPos))) {
-                return true;
-            }
-        }
-        return false;
+        return errorIndex.contains(SCErrorIndex.GRAMMAR, editorTextArea.getCaretPosition());
     }
 
     /**
@@ -877,14 +1232,7 @@ public class SCGUI {
      * @return true if so
      */
     boolean isCaretInStyleError() {
-        for (Integer wordPos : styleCorrections.keySet()) {
-            if (editorTextArea.getCaretPosition() >= wordPos && editorTextArea.getCaretPosition()
-                    < Math.min(editorTextArea.getText().indexOf(EnhancedSpellCheck.WORD_DELIM, wordPos),
-                    editorTextArea.getText().indexOf(EnhancedSpellCheck.SENTENCE_DELIM, wordPos))) {
-                return true;
-            }
-        }
-        return false;
+        return errorIndex.contains(SCErrorIndex.STYLE, editorTextArea.getCaretPosition());
     }
 
     /**
@@ -919,134 +1267,133 @@ public class SCGUI {
     }
 
     /**
-     * Stylecheck the document and highlight errors
+     * Stylecheck the document in the background and highlight errors
      */
     public void styleCheckDocument(boolean styleOnly) {
+        if (!checkReady("Style check", analyzer != null,
+                SCBootstrap.TAGGER, SCBootstrap.LANGUAGE_TOOL)) { return; }
+        String text = editorTextArea.getText();
+        Map<String, String> ignoredStyles = new HashMap<>(styleIgnore);
+        scheduler.submit("Style check", publisher
+                -> checkStyle(text, ignoredStyles, styleOnly, publisher),
+                () -> styleCheckDocument(styleOnly));
+    }
+
+    /**
+     * Stylecheck a snapshot of the document. Runs on the analysis thread.
+     * @param text - the document text
+     * @param ignoredStyles - the style rules to ignore
+     * @param styleOnly - true if the info panel should only show style
+     * @param publisher - receives the updates for the EDT
+     * @throws InterruptedException if cancelled
+     */
+    private void checkStyle(String text, Map<String, String> ignoredStyles, boolean styleOnly,
+                            SCAnalysisScheduler.Publisher publisher) throws InterruptedException {
         analyzer.profiler.clear();
-        analyzer.profiler.analyzeSample(editorTextArea.getText());
+        analyzer.profiler.analyzeSample(text);
+        SCAnalysisScheduler.checkCancelled();
 
         if (DEBUG) {
             analyzer.profiler.printAnalysis();
         }
 
-        LinkedList<SCHighlightedWord> styleErrors = new LinkedList<>();
         if (DEBUG) { System.out.println("Done Analyzing! Getting synonyms..."); }
 
-        // Overused adverbs
-        LinkedList<SCHighlightedWord> overAdv = new LinkedList<>();
-        for (String adv : analyzer.profiler.getOverusedAdverbs()) {
-            overAdv.addAll(getOccurrencePositions(editorTextArea.getText(), adv)
-                    .stream().map(loc -> new SCHighlightedWord(
-                            adv, loc, StyleRules.OVER_ADV)).collect(Collectors.toList()));
-        }
-        styleErrors.addAll(overAdv);
+        Map<String, List<String>> flaggedWords = getFlaggedWords();
+        SCAnalysisScheduler.checkCancelled();
+        HashMap<Integer, LinkedList<String>> corrections
+                = findStyleErrors(text, flaggedWords, ignoredStyles);
 
-        if (DEBUG) { System.out.println("Got " + overAdv.size() + " adverbs!"); }
+        if (DEBUG) { System.out.println("Got replacements, now highlighting!"); }
 
-        // Overused verbs
-        LinkedList<SCHighlightedWord> overV = new LinkedList<>();
-        for (String v : analyzer.profiler.getOverusedVerbs()) {
-            overAdv.addAll(getOccurrencePositions(editorTextArea.getText(), v)
-                    .stream().map(loc -> new SCHighlightedWord(
-                            v, loc, StyleRules.OVER_V)).collect(Collectors.toList()));
-        }
-        styleErrors.addAll(overV);
+        WorkProfile profile = analyzer.profiler.generateProfile();
+        int wordCount = SCStringFormat.getAllWordsAndPositions(text).size();
+        publisher.publish(() -> {
+            dirtyRegions.reset();
+            styleFlags = flaggedWords;
+            styleCorrections.setAll(corrections);
+            highlightStyleErrors();
+            prefetchTimer.restart();
+
+            documentProfile = profile;
+            if (styleOnly) {
+                infoTextArea.setText(documentProfile.getSCPanelString(wordCount));
+            } else {
+                infoTextArea.setText(SCPanelSuggestions.getPanelSpellingGrammarString(
+                        spellingCorrections.size(), grammarCorrections.size())
+                        + documentProfile.getSCPanelString(wordCount));
+            }
+            highlightInfoPanel();
+        });
+    }
 
-        if (DEBUG) { System.out.println("Got " + overV.size() + " verbs!"); }
+    /**
+     * Get the words the profiler's last analysis flags. Runs on the
+     * analysis thread.
+     * @return the flagged words to their rules
+     */
+    private Map<String, List<String>> getFlaggedWords() {
 
-        // Overused adjectives
-        LinkedList<SCHighlightedWord> overAdj = new LinkedList<>();
-        for (String adj : analyzer.profiler.getOverusedAdjectives()) {
-            overAdv.addAll(getOccurrencePositions(editorTextArea.getText(), adj)
-                    .stream().map(loc -> new SCHighlightedWord(
-                            adj, loc, StyleRules.OVER_ADJ)).collect(Collectors.toList()));
-        }
-        styleErrors.addAll(overAdj);
+        // Flagged words and their rules: overused adverbs, verbs, adjectives and nouns
+        Map<String, List<String>> flaggedWords = new LinkedHashMap<>();
+        addFlaggedWords(flaggedWords, analyzer.profiler.getOverusedAdverbs(), StyleRules.OVER_ADV);
+        addFlaggedWords(flaggedWords, analyzer.profiler.getOverusedVerbs(), StyleRules.OVER_V);
+        addFlaggedWords(flaggedWords, analyzer.profiler.getOverusedAdjectives(), StyleRules.OVER_ADJ);
+        addFlaggedWords(flaggedWords, analyzer.profiler.getOverusedNouns(), StyleRules.OVER_N);
 
-        if (DEBUG) { System.out.println("Got " + overAdj.size() + " adjectives!"); }
+        // Number words
+        addFlaggedWords(flaggedWords, analyzer.profiler.getNumberWords(), StyleRules.NUMBER_WORD);
+        return flaggedWords;
+    }
 
-        // Overused nouns
-        LinkedList<SCHighlightedWord> overN = new LinkedList<>();
-        for (String n : analyzer.profiler.getOverusedNouns()) {
-            overAdv.addAll(getOccurrencePositions(editorTextArea.getText(), n)
-                    .stream().map(loc -> new SCHighlightedWord(
-                            n, loc, StyleRules.OVER_N)).collect(Collectors.toList()));
-        }
-        styleErrors.addAll(overN);
+    /**
+     * Find the flagged words in a text and get their suggestions. Runs on
+     * the analysis thread.
+     * @param text - the document or span text
+     * @param flaggedWords - the flagged words to their rules
+     * @param ignoredStyles - the style rules to ignore
+     * @return the suggestions, by offset within the text
+     */
+    private HashMap<Integer, LinkedList<String>> findStyleErrors(
+            String text, Map<String, List<String>> flaggedWords, Map<String, String> ignoredStyles) {
 
-        if (DEBUG) { System.out.println("Got " + overN.size() + " nouns!"); }
+        // Find every occurrence of every flagged word in one pass
+        LinkedList<SCHighlightedWord> styleErrors = new LinkedList<>();
+        new WordLocator(flaggedWords.keySet()).locate(text, (word, pos) -> {
+            for (String rule : flaggedWords.get(word)) {
+                styleErrors.add(new SCHighlightedWord(word, pos, rule));
+            }
+        });
 
-        // Number words
-        for (String numberWord : analyzer.profiler.getNumberWords()) {
-            styleErrors.addAll(getOccurrencePositions(editorTextArea.getText(), numberWord)
-                    .stream().map(pos -> new SCHighlightedWord(numberWord, pos, StyleRules.NUMBER_WORD))
-                    .collect(Collectors.toList()));
+        if (DEBUG) {
+            System.out.println("Got " + styleErrors.size() + " occurrences of "
+                    + flaggedWords.size() + " flagged words!");
         }
 
-        if (DEBUG_FINE) { System.out.println("Eliminating ignored rules..."); }
-
         // Eliminate any ignored errors and place in suggestion dictionary
-        styleErrors.stream().filter(word -> !StyleRules.isRule(word.getStyleRule())
-                || styleIgnore.containsKey(word.getStyleRule())).forEach(styleErrors::remove);
+        styleErrors.removeIf(word -> !StyleRules.isRule(word.getStyleRule())
+                || ignoredStyles.containsKey(word.getStyleRule()));
 
-        styleCorrections.clear();
-        styleCorrections.putAll(getSynonymsForStyleErrors(styleErrors));
-        styleCorrections.putAll(getNumberWordReplacements(styleErrors));
+        HashMap<Integer, LinkedList<String>> corrections = new HashMap<>();
+        corrections.putAll(getSynonymFindings(styleErrors, ignoredStyles));
+        corrections.putAll(getNumberWordReplacements(styleErrors));
 
         // Eliminate any with no corrections
-        Iterable<Integer> remove = styleCorrections.keySet().stream()
-                .filter(pos -> styleCorrections.get(pos).isEmpty())
-                .collect(Collectors.toCollection(LinkedList::new));
-        remove.forEach(styleCorrections::remove);
-
-        if (DEBUG) { System.out.println("Got replacements, now highlighting!"); }
-
-        highlightStyleErrors();
-
-        documentProfile = analyzer.profiler.generateProfile();
-
-        if (styleOnly) {
-            infoTextArea.setText(documentProfile.getSCPanelString(wordCountDocument(false)));
-        } else {
-            infoTextArea.setText(SCPanelSuggestions.getPanelSpellingGrammarString(
-                    spellingCorrections.size(), grammarCorrections.size())
-                    + documentProfile.getSCPanelString(wordCountDocument(false)));
-        }
-        highlightInfoPanel();
+        corrections.values().removeIf(suggestions -> suggestions != null && suggestions.isEmpty());
+        return corrections;
     }
 
     /**
-     * Get all the positions in text where word occurs
-     * @param text - the text
-     * @param word - the word
-     * @return the list of positions
+     * Add words flagged by a style rule to the map of flagged words
+     * @param flaggedWords - the flagged words to their rules
+     * @param words - the words to add
+     * @param rule - the style rule that flagged them
      */
-    Collection<Integer> getOccurrencePositions(String text, String word) {
-        LinkedList<Integer> posList = new LinkedList<>();
-        int currPos = 0;
-        int nextPos;
-
-        // Get all occurrences
-        while (currPos + word.length() < text.length()) {
-            nextPos = text.indexOf(word, currPos);
-            if (nextPos == -1) { break; }
-
-            posList.add(nextPos);
-            currPos = nextPos + word.length();
-        }
-
-        if (DEBUG_FINE) {
-            System.out.print("Found positions: ");
-            for (Integer pos : posList) {
-                System.out.print(pos);
-                if (!posList.getLast().equals(pos)) {
-                    System.out.print(", ");
-                }
-            }
-            System.out.print("\n");
+    private static void addFlaggedWords(Map<String, List<String>> flaggedWords,
+                                        Iterable<String> words, String rule) {
+        for (String word : words) {
+            flaggedWords.computeIfAbsent(word, w -> new LinkedList<>()).add(rule);
         }
-
-        return posList;
     }
 
     /**
@@ -1075,93 +1422,212 @@ public class SCGUI {
     }
 
     /**
-     * Get all of the synonym suggestions for style errors
+     * Get the style errors that need synonym suggestions. The synonyms are
+     * only looked up when needed (see SCSynonymResolver), so each error
+     * maps to null until then.
      * @param styleErrors - the style error list
-     * @return the hashmap of error positions to suggestions
+     * @param ignoredStyles - the style rules to ignore
+     * @return the hashmap of error positions to unresolved suggestions
      */
-    Map<Integer, LinkedList<String>> getSynonymsForStyleErrors(
-            Collection<SCHighlightedWord> styleErrors) {
+    Map<Integer, LinkedList<String>> getSynonymFindings(
+            Collection<SCHighlightedWord> styleErrors, Map<String, String> ignoredStyles) {
 
         HashMap<Integer, LinkedList<String>> styleErrorMap = new HashMap<>();
+        styleErrors.stream().filter(styleError -> !ignoredStyles.containsKey(styleError.getStyleRule())
+                && StyleRules.requiresSynonyms(styleError.getStyleRule()))
+                .forEach(styleError -> styleErrorMap.put(styleError.getStartPosition(), null));
+        return styleErrorMap;
+    }
 
-        // Iterate over style errors and filter for synonym errors
-        styleErrors.stream().filter(styleError -> !isStyleRuleIgnored(styleError.getStyleRule())
-                && StyleRules.requiresSynonyms(styleError.getStyleRule())
-                && !styleErrorMap.containsKey(styleError.getStartPosition()))
-                .forEach(styleError -> styleErrorMap.put(styleError.getStartPosition(),
-                        getSynonymsForStyleError(styleError)));
+    /**
+     * Look up the synonym suggestions for a word in a sentence. Runs on the
+     * analysis thread for the synonym resolver.
+     * @param offset - the word's offset within the sentence
+     * @param sentence - the sentence text
+     * @return the list of synonym suggestions
+     */
+    private LinkedList<String> lookUpSynonyms(int offset, String sentence) {
+        int end = SCStringFormat.getEndOfCurrentWord(sentence, offset);
+        if (end < 0) { return new LinkedList<>(); }
+        SCHighlightedWord styleError = new SCHighlightedWord(
+                sentence.substring(offset, end), offset, null);
+        LinkedList<String> synonyms
+                = getSynonymsForStyleError(styleError, spellCheck.tokenize(sentence));
+        if (DEBUG_FINE) { System.out.println("Tagging: " + spellCheck.getTagger().getCache()); }
+        return synonyms;
+    }
 
-        return styleErrorMap;
+    /**
+     * Show the suggestions for a style error, looking up its synonyms
+     * first if they have not been resolved yet
+     * @param word - the word
+     * @param errorPos - the error position
+     */
+    private void showStyleSuggestions(String word, int errorPos) {
+        LinkedList<String> suggestions = styleCorrections.get(errorPos);
+        if (suggestions != null) {
+            showReplacementDialog(word, suggestions, errorPos, true);
+            return;
+        }
+        if (!checkReady("Style suggestions", isSynonymLookupReady(), SCBootstrap.TAGGER,
+                SCBootstrap.LANGUAGE_TOOL, SCBootstrap.DICTIONARY, SCBootstrap.WORDNET)) { return; }
+        synonymResolver.resolve(editorTextArea.getDocument(), Collections.singletonList(errorPos),
+                (pos, synonyms) -> {
+                    fillSynonyms(pos, synonyms);
+
+                    // Only show the dialog if the caret has stayed on the error
+                    if (!synonyms.isEmpty()
+                            && errorIndex.find(SCErrorIndex.STYLE, editorTextArea.getCaretPosition()) == pos) {
+                        showReplacementDialog(word, synonyms, pos, true);
+                    }
+                });
+    }
+
+    /**
+     * Store resolved synonyms for a style error that is still unresolved.
+     * An error with no synonyms has nothing to suggest, so it is dropped
+     * and unhighlighted.
+     * @param pos - the error position
+     * @param synonyms - the suggestions
+     */
+    private void fillSynonyms(int pos, LinkedList<String> synonyms) {
+        if (styleCorrections.containsKey(pos) && styleCorrections.get(pos) == null) {
+            if (synonyms.isEmpty()) {
+                styleCorrections.remove(pos);
+                if (highlightsOn) { highlightStyleErrors(); }
+            } else {
+                styleCorrections.put(pos, synonyms);
+            }
+        }
+    }
+
+    /**
+     * Look up synonyms in the background for unresolved style errors near
+     * the caret or in view, so they are ready when clicked
+     */
+    private void prefetchSynonyms() {
+        if (!highlightsOn || styleCorrections.size() == 0 || !isSynonymLookupReady()) { return; }
+        int caretPos = editorTextArea.getCaretPosition();
+        Rectangle visible = editorTextArea.getVisibleRect();
+        int viewStart = editorTextArea.viewToModel(visible.getLocation());
+        int viewEnd = editorTextArea.viewToModel(new Point(visible.x + visible.width,
+                visible.y + visible.height));
+
+        List<Integer> unresolved = new ArrayList<>();
+        styleCorrections.forEach((pos, suggestions) -> {
+            if (suggestions == null && unresolved.size() < PREFETCH_LIMIT
+                    && !ignoredErrors.containsKey(pos)
+                    && (Math.abs(pos - caretPos) <= PREFETCH_MARGIN
+                    || (pos >= viewStart && pos <= viewEnd))) {
+                unresolved.add(pos);
+            }
+        });
+        if (!unresolved.isEmpty()) {
+            synonymResolver.resolve(editorTextArea.getDocument(), unresolved, this::fillSynonyms);
+        }
     }
 
     /**
      * Get the synonym suggestions for a single style error
      * @param styleError - the style error
+     * @param document - the tokenized editor text
      * @return the list of synonym suggestions
      */
-    LinkedList<String> getSynonymsForStyleError(SCHighlightedWord styleError) {
-        LinkedList<String> window = spellCheck.getWindow(editorTextArea.getText(),
-                styleError.getWord());
-        if (window.indexOf(styleError.getWord()) == -1) {
+    LinkedList<String> getSynonymsForStyleError(SCHighlightedWord styleError,
+                                                TokenizedDocument document) {
+        int token = document.getTokenAt(styleError.getStartPosition());
+        if (token < 0 || !document.getCleaned(token).equals(styleError.getWord())) {
             if (DEBUG_FINE) { System.out.println("Word not in window!"); }
             return new LinkedList<>();
         }
-
-        // Get POS information and locate correct word-tag pair
-        LinkedList<String[]> taggedSentence = spellCheck.getTagger()
-                .getSentenceWordsAndTags(spellCheck.getCurrentSentence(
-                        editorTextArea.getText(), styleError.getStartPosition()));
-        int foundIndex = 0;
-        for (String tagged[] : taggedSentence) {
-            if (tagged[0].equals(styleError.getWord())) {
-                foundIndex = taggedSentence.indexOf(tagged);
+        LinkedList<String> window = spellCheck.getWindow(document, token);
+        int windowIndex = spellCheck.getWindowOffset(document, token);
+
+        // Get POS information for the sentence as the style check tagged it
+        CharSequence text = document.getText();
+        int span[] = getSentenceAt(text, styleError.getStartPosition());
+        TaggedSentence taggedSentence = spellCheck.getTagger()
+                .tagSentence(text.subSequence(span[0], span[1]).toString());
+        if (taggedSentence.size() == 0) { return new LinkedList<>(); }
+        int sentenceStart = span[0];
+        int foundIndex = taggedSentence.getTokenAt(styleError.getStartPosition() - sentenceStart);
+        if (foundIndex < 0) {
+            foundIndex = 0;
+            for (int i = 0; i < taggedSentence.size(); i++) {
+                if (taggedSentence.isWord(i, styleError.getWord())) { foundIndex = i; }
             }
         }
 
         // Find valid replacements using the list generated from synonyms
-        if (taggedSentence.isEmpty()) { return new LinkedList<>(); }
+        LinkedList<String> synonyms = synonymSearch.getSynonyms(
+                taggedSentence.getWord(foundIndex), taggedSentence.getTag(foundIndex));
 
         // If the first word in a sentence
-        if (SCStringFormat.isFirstWordInSentence(editorTextArea.getText(),
-                styleError.getStartPosition())) {
+        if (document.isFirstInSentence(token)) {
             return SCStringFormat.capitalizeWords(spellCheck
-                    .getValidReplacements(window, styleError.getWord(),
-                            synonymSearch.getSynonyms(taggedSentence.get(foundIndex))));
+                    .getValidReplacements(window, windowIndex, styleError.getWord(), synonyms));
         }
 
         // If not the first word
-        return spellCheck.getValidReplacements(window, styleError.getWord(),
-                synonymSearch.getSynonyms(taggedSentence.get(foundIndex)));
+        return spellCheck.getValidReplacements(window, windowIndex, styleError.getWord(), synonyms);
     }
 
     /**
-     * Build a language model of the document
+     * Build a language model of the document in the background
      */
     public void modelDocument() {
-        analyzer.identifier.analyzeSample(editorTextArea.getText(), "User");
+        if (!checkReady("Modelling", analyzer != null,
+                SCBootstrap.TAGGER, SCBootstrap.LANGUAGE_TOOL)) { return; }
+        String text = editorTextArea.getText();
+        scheduler.submit("Modelling", publisher -> analyzer.identifier.analyzeSample(text, "User"));
     }
 
     /**
      * Identify the closest author to the style
      */
     public void findClosestAuthor() {
-        if (documentProfile == null || unsavedChanges) {
+        if (!checkReady("Author identification", analyzer != null && authorIdentifier != null,
+                SCBootstrap.TAGGER, SCBootstrap.LANGUAGE_TOOL, SCBootstrap.AUTHORS)) { return; }
+        boolean reprofile = documentProfile == null || unsavedChanges;
+        if (reprofile) {
             saveDocument();
-            profileDocument();
         }
-        String author = authorIdentifier.getClosestAuthor(documentProfile);
-        optionPane.setMessage(author + " has the most similar style to yours.");
-        JDialog dialog = optionPane.createDialog(editorTextArea, APP_TITLE);
-        dialog.setVisible(true);
+        String text = reprofile ? editorTextArea.getText() : null;
+        WorkProfile existing = documentProfile;
+        scheduler.submit("Author identification", publisher -> {
+            WorkProfile profile = reprofile ? buildProfile(text) : existing;
+            String author = authorIdentifier.getClosestAuthor(profile);
+            publisher.publish(() -> {
+                documentProfile = profile;
+                optionPane.setMessage(author + " has the most similar style to yours.");
+                JDialog dialog = optionPane.createDialog(editorTextArea, APP_TITLE);
+                dialog.setVisible(true);
+            });
+        });
     }
 
     /**
-     * Profile the document
+     * Profile the document in the background
      */
     public void profileDocument() {
+        if (!checkReady("Profiling", analyzer != null,
+                SCBootstrap.TAGGER, SCBootstrap.LANGUAGE_TOOL)) { return; }
+        String text = editorTextArea.getText();
+        scheduler.submit("Profiling", publisher -> {
+            WorkProfile profile = buildProfile(text);
+            publisher.publish(() -> documentProfile = profile);
+        });
+    }
+
+    /**
+     * Build the statistical profile of a text. Runs on the analysis thread.
+     * @param text - the document text
+     * @return the profile
+     */
+    private WorkProfile buildProfile(String text) {
         analyzer.profiler.clear();
-        analyzer.profiler.analyzeSample(editorTextArea.getText());
-        documentProfile = analyzer.profiler.generateProfile();
+        analyzer.profiler.analyzeSample(text);
+        return analyzer.profiler.generateProfile();
     }
 
     /**
@@ -1189,16 +1655,30 @@ public class SCGUI {
         File openFile = fileManager.openFromFile();
         resetErrorInfo();
         if (openFile != null) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(openFile))) {
-                editorTextArea.read(reader, openFile);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            loadFile(openFile);
         }
+    }
+
+    /**
+     * Load a file into the editor in the background, showing progress
+     * for large files
+     * @param openFile - the file to load
+     */
+    private void loadFile(File openFile) {
+        scheduler.cancel();
+        liveCheckTimer.stop();
+        new SCDocumentLoader(frame, openFile, document -> {
+            resetErrorInfo();
 
-        // Add to recently opened files
-        addFileToMostRecentList(openFile);
-        workFile = openFile;
+            // Ignored errors are anchored in the old document
+            ignoredErrors.clear();
+            editorTextArea.setDocument(document);
+            editorTextArea.setCaretPosition(0);
+
+            // Add to recently opened files
+            addFileToMostRecentList(openFile);
+            workFile = openFile;
+        }).execute();
     }
 
     /**
@@ -1261,16 +1741,7 @@ public class SCGUI {
      */
     public void openFromPath(String path) {
         resetErrorInfo();
-        File openFile;
-        try {
-            openFile = new File(path);
-            BufferedReader reader = new BufferedReader(new FileReader(openFile));
-            editorTextArea.read(reader, openFile);
-            addFileToMostRecentList(openFile);
-            workFile = openFile;
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        loadFile(new File(path));
     }
 
     /**
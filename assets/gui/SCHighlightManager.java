@@ -0,0 +1,220 @@
+package assets.gui;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Position;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Class to manage the error highlights in the editor, one layer per
+ * error category (see SCErrorIndex).
+ *
+ * Every span keeps the tag returned by the Highlighter, so a category
+ * is cleared by removing exactly its own highlights rather than
+ * scanning them all and comparing painter colors. Spans are anchored to
+ * document Positions. Once a document has more than LAZY_THRESHOLD
+ * spans, only the ones in the visible part of the editor (plus a margin)
+ * are given highlights; the rest are added as the viewport scrolls to
+ * them and dropped again when it moves away.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class SCHighlightManager {
+
+    // Above this many spans only the visible part of the editor is highlighted
+    public static final int LAZY_THRESHOLD = 2000;
+
+    // Characters highlighted either side of the visible text
+    public static final int VIEWPORT_MARGIN = 4096;
+
+    private final JTextComponent editor;
+    private final Highlighter highlighter;
+    private final Highlighter.HighlightPainter painters[];  // Painter per category
+    private final List<List<Span>> spans;           // Sorted by start, per category
+    private final List<List<Span>> materialized;    // Spans with a highlight, per category
+    private int spanCount;
+
+    /**
+     * Create a manager with no highlights
+     * @param e - the editor
+     * @param h - the editor's highlighter
+     * @param p - the painter for each category, in category order
+     */
+    SCHighlightManager(JTextComponent e, Highlighter h, Highlighter.HighlightPainter... p) {
+        editor = e;
+        highlighter = h;
+        painters = p;
+        spans = new ArrayList<>(p.length);
+        materialized = new ArrayList<>(p.length);
+        for (int category = 0; category < p.length; category++) {
+            spans.add(new ArrayList<>());
+            materialized.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Replace the spans of one category
+     * @param category - the error category
+     * @param ranges - the {start, end} spans, sorted by start
+     */
+    void setSpans(int category, List<int[]> ranges) {
+        clear(category);
+        List<Span> categorySpans = spans.get(category);
+        for (int range[] : ranges) {
+            try {
+                categorySpans.add(new Span(editor.getDocument().createPosition(range[0]),
+                        editor.getDocument().createPosition(range[1])));
+            } catch (BadLocationException e) {
+                e.printStackTrace();
+            }
+        }
+        spanCount += categorySpans.size();
+        updateViewport();
+    }
+
+    /**
+     * Remove every span of one category
+     * @param category - the error category
+     */
+    void clear(int category) {
+        for (Span span : materialized.get(category)) {
+            highlighter.removeHighlight(span.tag);
+            span.tag = null;
+        }
+        materialized.get(category).clear();
+        spanCount -= spans.get(category).size();
+        spans.get(category).clear();
+    }
+
+    /**
+     * Remove every span
+     */
+    void clearAll() {
+        for (int category = 0; category < spans.size(); category++) { clear(category); }
+    }
+
+    /**
+     * Remove the spans that overlap a range of the editor text
+     * @param start - the start of the range
+     * @param end - the end of the range (exclusive)
+     */
+    void removeOverlapping(int start, int end) {
+        for (List<Span> categorySpans : spans) {
+            Iterator<Span> it = categorySpans.iterator();
+            while (it.hasNext()) {
+                Span span = it.next();
+                if (span.start.getOffset() >= end) { break; }
+                if (span.end.getOffset() > start) {
+                    if (span.tag != null) {
+                        highlighter.removeHighlight(span.tag);
+                        span.tag = null;
+                    }
+                    it.remove();
+                    spanCount--;
+                }
+            }
+        }
+        for (List<Span> categorySpans : materialized) {
+            categorySpans.removeIf(span -> span.tag == null);
+        }
+    }
+
+    /**
+     * Check whether there are no spans at all
+     * @return true if nothing is highlighted
+     */
+    boolean isEmpty() { return spanCount == 0; }
+
+    /**
+     * Make sure the spans near the visible text have highlights. Called
+     * when spans change and whenever the editor's viewport moves.
+     */
+    void updateViewport() {
+        int low = 0;
+        int high = Integer.MAX_VALUE;
+        if (spanCount > LAZY_THRESHOLD) {
+            Rectangle visible = editor.getVisibleRect();
+            low = editor.viewToModel(visible.getLocation()) - VIEWPORT_MARGIN;
+            high = editor.viewToModel(new Point(visible.x + visible.width,
+                    visible.y + visible.height)) + VIEWPORT_MARGIN;
+        }
+
+        for (int category = 0; category < spans.size(); category++) {
+            List<Span> categorySpans = spans.get(category);
+            List<Span> categoryMaterialized = materialized.get(category);
+
+            // Drop highlights that have scrolled well out of view
+            Iterator<Span> it = categoryMaterialized.iterator();
+            while (it.hasNext()) {
+                Span span = it.next();
+                if (span.end.getOffset() < low || span.start.getOffset() > high) {
+                    highlighter.removeHighlight(span.tag);
+                    span.tag = null;
+                    it.remove();
+                }
+            }
+
+            // Add highlights for spans that have come into view
+            for (int i = search(categorySpans, low); i < categorySpans.size(); i++) {
+                Span span = categorySpans.get(i);
+                if (span.start.getOffset() > high) { break; }
+                if (span.tag == null) {
+                    try {
+                        span.tag = highlighter.addHighlight(span.start.getOffset(),
+                                span.end.getOffset(), painters[category]);
+                        categoryMaterialized.add(span);
+                    } catch (BadLocationException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the first span starting at or after an offset
+     * @param categorySpans - the sorted spans
+     * @param offset - the offset in the editor
+     * @return the span index
+     */
+    private static int search(List<Span> categorySpans, int offset) {
+        int low = 0;
+        int high = categorySpans.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (categorySpans.get(mid).start.getOffset() < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * A highlighted range and its highlight, if it has one
+     */
+    private static class Span {
+
+        private final Position start;
+        private final Position end;
+        private Object tag;                 // Highlighter tag, or null if not shown
+
+        /**
+         * Create a span without a highlight
+         * @param s - the start position
+         * @param e - the end position (exclusive)
+         */
+        Span(Position s, Position e) {
+            start = s;
+            end = e;
+        }
+    }
+
+}
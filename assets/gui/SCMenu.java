@@ -6,7 +6,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
-import java.io.IOException;
 import java.util.*;
 import java.util.List;
 
@@ -263,11 +262,7 @@ class SCMenu {
                     break;
 
                 case SPELL_OPTION_TITLE:     // "Spell/Grammar Check Document"
-                    try {
-                        gui.spellCheckDocument(true);
-                    } catch (IOException e1) {
-                        e1.printStackTrace();
-                    }
+                    gui.spellCheckDocument(true);
                     break;
 
                 case STYLE_OPTION_TITLE:     // "Analyze Style"
@@ -275,12 +270,7 @@ class SCMenu {
                     break;
 
                 case BOTH_OPTION_TITLE:      // "Show All Suggestions"
-                    try {
-                        gui.spellCheckDocument(false);
-                        gui.styleCheckDocument(false);
-                    } catch (IOException e1) {
-                        e1.printStackTrace();
-                    }
+                    gui.checkAllDocument();
                     break;
 
                 case AUTHOR_OPTION_TITLE:    // "Find Closest Author"
@@ -2,10 +2,14 @@ package assets.gui;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Class to display a splash screen while StyleCheck
- * components load in the GUI.
+ * components load in the GUI. Can list each resource
+ * being loaded with its progress and load time.
  *
  * Written for the StyleCheck program by Alex Welton.
  *
@@ -19,28 +23,70 @@ class SCSplashScreen extends JWindow {
 
     private static final int SPLASH_WIDTH = 300;
     private static final int SPLASH_HEIGHT = 120;
+    private static final int ROW_HEIGHT = 20;
+
+    private final Map<String, JLabel> statusLabels;    // Status label for each resource
 
     /**
      * Constructor to build the splash screen
      */
     public SCSplashScreen(String message) {
+        this(message, null);
+    }
+
+    /**
+     * Constructor to build the splash screen with a status row per resource
+     * @param message - the message to show
+     * @param resources - the resources to list, or null for none
+     */
+    public SCSplashScreen(String message, List<String> resources) {
+        statusLabels = new HashMap<>();
+        int rows = resources == null ? 0 : resources.size();
 
         // Set size and location
-        setSize(SPLASH_WIDTH, SPLASH_HEIGHT);
+        setSize(SPLASH_WIDTH, SPLASH_HEIGHT + rows * ROW_HEIGHT);
         Dimension screenSize =
                 Toolkit.getDefaultToolkit().getScreenSize();
         setLocation((screenSize.width / 2) - (SPLASH_WIDTH / 2),
-                (screenSize.height / 2) - (SPLASH_HEIGHT / 2));
+                (screenSize.height / 2) - (getHeight() / 2));
 
-        // Add the text box
+        // Add the text box and resource rows
         getContentPane().add(initializeTextField(message),
                 BorderLayout.CENTER);
+        if (rows > 0) {
+            getContentPane().add(initializeResourcePanel(resources),
+                    BorderLayout.SOUTH);
+        }
 
         // Make the splash screen visible
         toFront();
         setVisible(true);
     }
 
+    /**
+     * Show the progress of a resource
+     * @param resource - the resource name
+     * @param state - the SCBootstrap state
+     * @param millis - the load time
+     */
+    public void setResourceState(String resource, int state, long millis) {
+        JLabel label = statusLabels.get(resource);
+        if (label == null) { return; }
+        switch (state) {
+            case SCBootstrap.LOADING:
+                label.setText("Loading...");
+                break;
+            case SCBootstrap.READY:
+                label.setText("Ready (" + millis + " ms)");
+                break;
+            case SCBootstrap.FAILED:
+                label.setText("Failed (" + millis + " ms)");
+                break;
+            default:
+                label.setText("Waiting");
+        }
+    }
+
     /**
      * Close the splash screen and free resources
      */
@@ -60,4 +106,20 @@ class SCSplashScreen extends JWindow {
         return tf;
     }
 
+    /**
+     * Initialize the resource rows
+     * @param resources - the resources to list
+     * @return the panel
+     */
+    private JPanel initializeResourcePanel(List<String> resources) {
+        JPanel panel = new JPanel(new GridLayout(resources.size(), 2));
+        for (String resource : resources) {
+            JLabel status = new JLabel("Waiting");
+            statusLabels.put(resource, status);
+            panel.add(new JLabel(" " + resource));
+            panel.add(status);
+        }
+        return panel;
+    }
+
 }
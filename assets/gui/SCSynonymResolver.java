@@ -0,0 +1,243 @@
+package assets.gui;
+
+import assets.general.SCStringFormat;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class to look up synonym suggestions for style findings on demand.
+ *
+ * Tagging a sentence, querying WordNet and ranking the candidates is too
+ * slow to do for every finding during a style check, so findings start
+ * out unresolved and are looked up here when clicked, or ahead of time
+ * when they come near the caret or into view. Lookups run on the
+ * analysis thread, since the tagger and language model are not shared
+ * between threads, and results are memoized by word and sentence text.
+ * Sentences are split as LanguageTool splits them, so a lookup tags the
+ * same sentence text the style check did and finds it in the tag cache.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class SCSynonymResolver {
+
+    // Memoized lookups to keep
+    public static final int MAX_ENTRIES = 4096;
+
+    /**
+     * Looks up the synonyms of a word within its sentence. Runs on the
+     * analysis thread.
+     */
+    interface Lookup {
+
+        /**
+         * Look up the suggestions for a word
+         * @param offset - the word's offset within the sentence
+         * @param sentence - the sentence text
+         * @return the suggestions, possibly empty
+         */
+        LinkedList<String> getSynonyms(int offset, String sentence);
+    }
+
+    /**
+     * Finds the sentence around a word
+     */
+    interface Sentences {
+
+        /**
+         * Get the sentence containing an offset
+         * @param text - the document text
+         * @param position - the offset
+         * @return the {start, end} span of the sentence
+         */
+        int[] getSentenceAt(CharSequence text, int position);
+    }
+
+    /**
+     * Receives resolved suggestions on the event dispatch thread
+     */
+    interface Resolved {
+
+        /**
+         * Accept the suggestions for a finding
+         * @param position - the finding's current offset
+         * @param synonyms - the suggestions
+         */
+        void resolved(int position, LinkedList<String> synonyms);
+    }
+
+    private final SCAnalysisScheduler scheduler;
+    private final Lookup lookup;
+    private final Sentences sentences;
+    private final LinkedHashMap<String, LinkedList<String>> memo;
+    private final Set<String> pending;          // Keys queued for lookup (EDT access only)
+
+    /**
+     * Create a resolver
+     * @param s - the scheduler whose thread runs the lookups
+     * @param l - the lookup
+     * @param ss - finds the sentence around a word
+     */
+    SCSynonymResolver(SCAnalysisScheduler s, Lookup l, Sentences ss) {
+        scheduler = s;
+        lookup = l;
+        sentences = ss;
+        memo = new LinkedHashMap<String, LinkedList<String>>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LinkedList<String>> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+        pending = new HashSet<>();
+    }
+
+    /**
+     * Resolve the suggestions for style findings. Call on the EDT.
+     * Memoized findings are reported straight away; the rest are looked
+     * up in the background and reported as they finish, unless their
+     * sentence has been edited in the meantime.
+     * @param document - the editor document
+     * @param positions - the offsets of the findings
+     * @param resolved - receives the suggestions on the EDT
+     */
+    void resolve(Document document, Collection<Integer> positions, Resolved resolved) {
+        CharSequence text = getText(document);
+        List<Request> requests = new ArrayList<>();
+        for (Integer position : positions) {
+            Request request = createRequest(document, text, position);
+            if (request == null) { continue; }
+
+            LinkedList<String> synonyms = getMemo(request.key);
+            if (synonyms != null) {
+                resolved.resolved(position, new LinkedList<>(synonyms));
+            } else if (pending.add(request.key)) {
+                requests.add(request);
+            }
+        }
+        if (requests.isEmpty()) { return; }
+
+        scheduler.enqueue("Synonym lookup", publisher -> {
+            for (Request request : requests) {
+                SCAnalysisScheduler.checkCancelled();
+                LinkedList<String> synonyms;
+                try {
+                    synonyms = lookup.getSynonyms(request.offset, request.sentence);
+                    putMemo(request.key, synonyms);
+                } catch (RuntimeException e) {
+                    System.err.println("Uh oh! Synonym lookup failed: " + e);
+                    synonyms = null;
+                }
+
+                LinkedList<String> result = synonyms;
+                publisher.publish(() -> {
+                    pending.remove(request.key);
+                    if (result == null) { return; }
+                    Request current = createRequest(document, getText(document),
+                            request.anchor.getOffset());
+                    if (current != null && current.key.equals(request.key)) {
+                        resolved.resolved(request.anchor.getOffset(), new LinkedList<>(result));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Build the lookup for the word at an offset
+     * @param document - the editor document
+     * @param text - the document text
+     * @param position - the start of the word
+     * @return the request, or null if there is no word there
+     */
+    private Request createRequest(Document document, CharSequence text, int position) {
+        int wordEnd = SCStringFormat.getEndOfCurrentWord(text, position);
+        if (wordEnd < 0) { return null; }
+
+        int sentence[] = sentences.getSentenceAt(text, position);
+        int start = sentence[0];
+        int end = sentence[1];
+
+        try {
+            return new Request(document.createPosition(position),
+                    text.subSequence(position, wordEnd).toString(),
+                    text.subSequence(start, end).toString(), position - start);
+        } catch (BadLocationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get a view of a document's text
+     * @param document - the document
+     * @return the text
+     */
+    private static CharSequence getText(Document document) {
+        Segment segment = new Segment();
+        try {
+            document.getText(0, document.getLength(), segment);
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+        return segment;
+    }
+
+    /**
+     * Get memoized suggestions
+     * @param key - the word and sentence key
+     * @return the suggestions, or null if they have not been looked up
+     */
+    private synchronized LinkedList<String> getMemo(String key) { return memo.get(key); }
+
+    /**
+     * Memoize suggestions
+     * @param key - the word and sentence key
+     * @param synonyms - the suggestions
+     */
+    private synchronized void putMemo(String key, LinkedList<String> synonyms) {
+        memo.put(key, synonyms);
+    }
+
+    /**
+     * Drop every memoized lookup
+     */
+    synchronized void clear() {
+        memo.clear();
+    }
+
+    /**
+     * One finding to look up
+     */
+    private static class Request {
+
+        private final Position anchor;      // The finding, following edits
+        private final String key;           // Word and sentence
+        private final String sentence;
+        private final int offset;           // Word offset within the sentence
+
+        /**
+         * Create a request
+         * @param a - the anchored finding position
+         * @param word - the word
+         * @param s - the sentence text
+         * @param o - the word's offset in the sentence
+         */
+        Request(Position a, String word, String s, int o) {
+            anchor = a;
+            key = word + '\n' + s;
+            sentence = s;
+            offset = o;
+        }
+    }
+
+}
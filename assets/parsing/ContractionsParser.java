@@ -26,7 +26,7 @@ public class ContractionsParser extends CorporaParser {
         fileLines.stream().filter(line -> !line.isEmpty()
                 && !line.contains(WIKI_CONTRACTIONS_DELIM))
                 .forEach(line -> contractions.put(line.toLowerCase().trim(),
-                getAlternateForms(fileLines.get(fileLines.indexOf(line)))));
+                getAlternateForms(line)));
         return contractions;
     }
 
@@ -2,7 +2,6 @@ package assets.parsing;
 
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
 
 /**
  * Class to parse the contents of the UNIX words corpora.
@@ -13,7 +12,7 @@ import java.util.LinkedList;
 public class DictionaryWordsParser extends CorporaParser {
 
     // Path of UNIX words file
-    private static final String WORDS_FILE = "src/files/corpora/English.words";
+    static final String WORDS_FILE = "src/files/corpora/English.words";
 
     // Each word mapped to itself for fast membership testing.
     private final HashMap<String, String> dictionary;
@@ -0,0 +1,392 @@
+package assets.parsing;
+
+import assets.general.BKTreeIndex;
+import assets.general.CompactDictionary;
+import assets.general.RegionalVariantIndex;
+import assets.spellcheck.MisspelledWordMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Class to compile the lexical corpora (the UNIX words list, the
+ * Wikipedia misspellings and the Wikipedia contractions) into a single
+ * versioned, checksummed binary snapshot, and to load it back.
+ *
+ * The snapshot is mapped read-only. The dictionary and British variant
+ * sections are used in place as CompactDictionaries, and the BK-tree of
+ * the dictionary is read back as three int arrays rather than rebuilt;
+ * the two smaller maps are decoded from length-prefixed strings without
+ * any regex parsing. If any source text file is newer than the snapshot,
+ * or the snapshot fails its version or checksum test, it is rebuilt from
+ * the sources. A rebuilt snapshot replaces the old file rather than
+ * overwriting it, as other processes may still have the old one mapped.
+ *
+ * Layout:
+ *   int magic, int version, long crc32 (of everything that follows)
+ *   int dictionaryLength, byte dictionary[dictionaryLength]
+ *   wikipedia map section, contractions map section
+ *   int variantsLength, byte variants[variantsLength]
+ *   int treeLength, byte tree[treeLength]
+ * where a map section is
+ *   int entryCount, then per entry: string key, int formCount, string forms[formCount]
+ * and a string is a char count followed by its UTF-16 chars. The
+ * variants are a CompactDictionary (see RegionalVariantIndex) and the
+ * tree is a compiled BKTreeIndex.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+public final class LexicalSnapshot {
+
+    public static final String SNAPSHOT_FILE = "src/files/corpora/Lexical.snapshot";
+
+    public static final int MAGIC = 0x53434C53;     // "SCLS"
+    public static final int VERSION = 3;
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+
+    // Source corpora the snapshot is built from
+    private static final String SOURCE_FILES[] = {
+            DictionaryWordsParser.WORDS_FILE,
+            WikipediaSpellingParser.WIKI_SPELLING,
+            ContractionsParser.WIKI_CONTRACTIONS_PATH };
+
+    // Snapshot shared by every component in this process
+    private static LexicalSnapshot shared;
+
+    private final CompactDictionary dictionary;
+    private final MisspelledWordMap wikipediaMap;
+    private final HashMap<String, LinkedList<String>> contractions;
+    private final RegionalVariantIndex variants;
+    private final ByteBuffer candidateTree;
+
+    /**
+     * Decode a snapshot from a buffer in the compiled layout
+     * @param buffer - the snapshot buffer (heap or mapped)
+     */
+    private LexicalSnapshot(ByteBuffer buffer) {
+        ByteBuffer data = buffer.duplicate();
+        data.position(HEADER_BYTES);
+
+        dictionary = new CompactDictionary(readSection(data));
+        wikipediaMap = new MisspelledWordMap();
+        readMap(data).forEach(wikipediaMap::addWord);
+        contractions = readMap(data);
+        variants = new RegionalVariantIndex(new CompactDictionary(readSection(data)));
+        candidateTree = readSection(data);
+    }
+
+    /**
+     * Cut a length-prefixed section out of a buffer and advance past it
+     * @param data - the buffer
+     * @return the section
+     */
+    private static ByteBuffer readSection(ByteBuffer data) {
+        int length = data.getInt();
+        ByteBuffer section = data.slice();
+        section.limit(length);
+        data.position(data.position() + length);
+        return section;
+    }
+
+    /**
+     * Get the snapshot shared by all components, loading it on first use
+     * @return the snapshot
+     */
+    public static synchronized LexicalSnapshot getSnapshot() {
+        if (shared == null) {
+            shared = load(SNAPSHOT_FILE);
+        }
+        return shared;
+    }
+
+    /**
+     * Load a snapshot, rebuilding it first if it is missing, stale or corrupt
+     * @param filename - the snapshot file
+     * @return the snapshot
+     */
+    public static LexicalSnapshot load(String filename) {
+        File snapshotFile = new File(filename);
+        if (snapshotFile.isFile() && !isStale(snapshotFile)) {
+            try {
+                return open(filename);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Uh oh! Rebuilding lexical snapshot: " + e.getMessage());
+            }
+        }
+
+        // Rebuild from the text corpora
+        ByteBuffer compiled = build();
+        try {
+            write(compiled, filename);
+            return open(filename);
+        } catch (IOException e) {
+            System.err.println("Uh oh! Could not write lexical snapshot: " + e.getMessage());
+            return new LexicalSnapshot(compiled);
+        }
+    }
+
+    /**
+     * Check whether any source corpus is newer than the snapshot
+     * @param snapshotFile - the snapshot file
+     * @return true if the snapshot must be rebuilt
+     */
+    static boolean isStale(File snapshotFile) {
+        long built = snapshotFile.lastModified();
+        for (String source : SOURCE_FILES) {
+            if (new File(source).lastModified() > built) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Map a snapshot file read-only and validate it
+     * @param filename - the snapshot file
+     * @return the snapshot
+     * @throws IOException
+     */
+    static LexicalSnapshot open(String filename) throws IOException {
+        ByteBuffer mapped;
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+             FileChannel channel = file.getChannel()) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        validate(mapped);
+        return new LexicalSnapshot(mapped);
+    }
+
+    /**
+     * Check the magic number, version and checksum of a snapshot
+     * @param buffer - the snapshot buffer
+     */
+    private static void validate(ByteBuffer buffer) {
+        ByteBuffer data = buffer.duplicate();
+        data.position(0);
+        if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a lexical snapshot");
+        }
+        if (data.getInt() != VERSION) {
+            throw new IllegalArgumentException("Snapshot version mismatch");
+        }
+        long expected = data.getLong();
+        if (checksum(data) != expected) {
+            throw new IllegalArgumentException("Snapshot checksum mismatch");
+        }
+    }
+
+    /**
+     * Compute the CRC32 of the remaining bytes of a buffer
+     * @param payload - the buffer, positioned at the start of the payload
+     * @return the checksum
+     */
+    private static long checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return crc.getValue();
+    }
+
+    /**
+     * Parse every source corpus and build the snapshot in memory
+     * @return the snapshot buffer, positioned at 0
+     */
+    static ByteBuffer build() {
+        ByteBuffer dictionaryData = CompactDictionary.build(
+                new DictionaryWordsParser().getDictionary().keySet());
+        Map<String, LinkedList<String>> wiki = WikipediaSpellingParser.getWikipediaMap().getMap();
+        Map<String, LinkedList<String>> contractionMap = ContractionsParser.getContractionDictionary();
+        CompactDictionary compiled = new CompactDictionary(dictionaryData);
+        ByteBuffer variantData = RegionalVariantIndex.build(compiled);
+        ByteBuffer treeData = BKTreeIndex.build(compiled);
+
+        int length = HEADER_BYTES + Integer.BYTES * 3 + dictionaryData.remaining()
+                + getMapLength(wiki) + getMapLength(contractionMap)
+                + variantData.remaining() + treeData.remaining();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        buffer.position(HEADER_BYTES);
+        buffer.putInt(dictionaryData.remaining());
+        buffer.put(dictionaryData);
+        writeMap(buffer, wiki);
+        writeMap(buffer, contractionMap);
+        buffer.putInt(variantData.remaining());
+        buffer.put(variantData);
+        buffer.putInt(treeData.remaining());
+        buffer.put(treeData);
+
+        // Fill in the header now that the payload is known
+        buffer.position(HEADER_BYTES);
+        long crc = checksum(buffer);
+        buffer.position(0);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(crc);
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Write a compiled snapshot to file. It is written to a temporary file
+     * in the same directory and then moved over the old one in a single
+     * step, so a process that has the old snapshot mapped keeps reading
+     * the old file, and one that starts meanwhile never sees a partial one.
+     * @param compiled - the snapshot buffer
+     * @param filename - the file to write
+     * @throws IOException
+     */
+    private static void write(ByteBuffer compiled, String filename) throws IOException {
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            ByteBuffer data = compiled.duplicate();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Get the encoded size of a map section
+     * @param map - the map
+     * @return the length in bytes
+     */
+    private static int getMapLength(Map<String, LinkedList<String>> map) {
+        int length = Integer.BYTES;
+        for (Map.Entry<String, LinkedList<String>> entry : map.entrySet()) {
+            length += getStringLength(entry.getKey()) + Integer.BYTES;
+            for (String form : entry.getValue()) {
+                length += getStringLength(form);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Get the encoded size of a string
+     * @param str - the string
+     * @return the length in bytes
+     */
+    private static int getStringLength(String str) {
+        return Integer.BYTES + str.length() * Character.BYTES;
+    }
+
+    /**
+     * Encode a map section
+     * @param buffer - the buffer to write to
+     * @param map - the map
+     */
+    private static void writeMap(ByteBuffer buffer, Map<String, LinkedList<String>> map) {
+        buffer.putInt(map.size());
+        for (Map.Entry<String, LinkedList<String>> entry : map.entrySet()) {
+            writeString(buffer, entry.getKey());
+            buffer.putInt(entry.getValue().size());
+            for (String form : entry.getValue()) {
+                writeString(buffer, form);
+            }
+        }
+    }
+
+    /**
+     * Decode a map section
+     * @param buffer - the buffer to read from
+     * @return the decoded map
+     */
+    private static HashMap<String, LinkedList<String>> readMap(ByteBuffer buffer) {
+        int entries = buffer.getInt();
+        HashMap<String, LinkedList<String>> map = new HashMap<>(entries * 2);
+        for (int i = 0; i < entries; i++) {
+            String key = readString(buffer);
+            int forms = buffer.getInt();
+            LinkedList<String> formList = new LinkedList<>();
+            for (int j = 0; j < forms; j++) {
+                formList.add(readString(buffer));
+            }
+            map.put(key, formList);
+        }
+        return map;
+    }
+
+    /**
+     * Encode a string as its length followed by its chars
+     * @param buffer - the buffer to write to
+     * @param str - the string
+     */
+    private static void writeString(ByteBuffer buffer, String str) {
+        buffer.putInt(str.length());
+        for (int i = 0; i < str.length(); i++) {
+            buffer.putChar(str.charAt(i));
+        }
+    }
+
+    /**
+     * Decode a length-prefixed string
+     * @param buffer - the buffer to read from
+     * @return the string
+     */
+    private static String readString(ByteBuffer buffer) {
+        char chars[] = new char[buffer.getInt()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = buffer.getChar();
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Getter for the compact English dictionary
+     * @return the dictionary
+     */
+    public CompactDictionary getDictionary() { return dictionary; }
+
+    /**
+     * Getter for the Wikipedia misspellings map
+     * @return the map of misspellings to corrections
+     */
+    public MisspelledWordMap getWikipediaMap() { return wikipediaMap; }
+
+    /**
+     * Getter for the contractions map
+     * @return the map of contractions to full forms
+     */
+    public HashMap<String, LinkedList<String>> getContractions() { return contractions; }
+
+    /**
+     * Getter for the British spellings of dictionary words
+     * @return the variant index
+     */
+    public RegionalVariantIndex getVariants() { return variants; }
+
+    /**
+     * Reopen the dictionary's compiled BK-tree. Each call gets its own
+     * index, as words can be added to it.
+     * @return the candidate index
+     */
+    public BKTreeIndex getCandidateIndex() { return new BKTreeIndex(dictionary, candidateTree); }
+
+    /**
+     * Resource compiler: rebuild the snapshot from the text corpora
+     */
+    public static void main(String... args) throws IOException {
+        String filename = args.length > 0 ? args[0] : SNAPSHOT_FILE;
+        long startTime = System.currentTimeMillis();
+        ByteBuffer compiled = build();
+        write(compiled, filename);
+        System.out.println("Compiled lexical snapshot (" + compiled.remaining() + " bytes) in "
+                + (System.currentTimeMillis() - startTime) + " ms.");
+    }
+
+}
@@ -2,7 +2,6 @@ package assets.parsing;
 
 import assets.spellcheck.MisspelledWordMap;
 
-import java.util.Arrays;
 import java.util.LinkedList;
 
 /**
@@ -14,8 +13,9 @@ import java.util.LinkedList;
  */
 public class WikipediaSpellingParser extends CorporaParser {
 
-    private static final String WIKI_SPELLING = "src/files/corpora/MisspelledWordsWikipedia.txt";
-    private static final String WIKI_SPELLING_DELIM = "(->)|(, )";
+    static final String WIKI_SPELLING = "src/files/corpora/MisspelledWordsWikipedia.txt";
+    private static final String WIKI_WORD_DELIM = "->";
+    private static final String WIKI_CORRECTION_DELIM = ", ";
 
     /**
      * Create a MisspelledWordMap from the Wikipedia corpus with all of the
@@ -24,15 +24,35 @@ public class WikipediaSpellingParser extends CorporaParser {
      */
     public static MisspelledWordMap getWikipediaMap() {
         MisspelledWordMap map = new MisspelledWordMap();
-        String wikiData[][] = splitFileOnDelimiter(getFileAsString(WIKI_SPELLING),
-                WIKI_SPELLING_DELIM);
+        getFileLineList(WIKI_SPELLING).stream().filter(line -> !line.isEmpty())
+                .forEach(line -> addLine(map, line));
+        return map;
+    }
 
-        for (String[] aWikiData : wikiData) {
-            String corrections[] = Arrays.copyOfRange(aWikiData, 1, aWikiData.length);
-            map.addWord(aWikiData[0], new LinkedList<>(Arrays.asList(corrections)));
+    /**
+     * Split a single "misspelling->correction, correction" line and add it
+     * @param map - the map to add to
+     * @param line - the corpus line
+     */
+    private static void addLine(MisspelledWordMap map, String line) {
+        int arrow = line.indexOf(WIKI_WORD_DELIM);
+        if (arrow < 0) {
+            map.addWord(line, new LinkedList<>());
+            return;
         }
 
-        return map;
+        LinkedList<String> corrections = new LinkedList<>();
+        int start = arrow + WIKI_WORD_DELIM.length();
+        int end = line.indexOf(WIKI_CORRECTION_DELIM, start);
+        while (end >= 0) {
+            corrections.add(line.substring(start, end));
+            start = end + WIKI_CORRECTION_DELIM.length();
+            end = line.indexOf(WIKI_CORRECTION_DELIM, start);
+        }
+        if (start < line.length()) {
+            corrections.add(line.substring(start));
+        }
+        map.addWord(line.substring(0, arrow), corrections);
     }
 
     /**
@@ -3,7 +3,7 @@ package assets.spellcheck;
 import assets.general.*;
 import assets.gui.SCGUI;
 import assets.parsing.CorporaParser;
-import assets.parsing.WikipediaSpellingParser;
+import assets.parsing.LexicalSnapshot;
 import org.clapper.util.misc.ObjectExistsException;
 import org.clapper.util.misc.VersionMismatchException;
 import org.languagetool.JLanguageTool;
@@ -11,7 +11,9 @@ import org.languagetool.language.AmericanEnglish;
 import org.languagetool.rules.RuleMatch;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
@@ -26,10 +28,11 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
     // Levenshtein distance weight for ranking
     private static final double LEVENSHTEIN_WEIGHT = 2.0;
 
-    private MisspelledWordMap wikiMap;    // Map of Wikipedia misspelled words
-    private POSTagger tagger;             // Stanford POS tagger
-    private NGramLM nGramSearch;          // Fast n-gram probability lookup
-    private EnglishDictionary dict;       // UNIX words list
+    // Components may arrive after construction (see the no-load constructor)
+    private volatile MisspelledWordMap wikiMap;   // Map of Wikipedia misspelled words
+    private POSTagger tagger;                     // Stanford POS tagger
+    private volatile NGramLM nGramSearch;         // Fast n-gram probability lookup
+    private volatile EnglishDictionary dict;      // UNIX words list
 
     public static final char SENTENCE_DELIM = '.';
     public static final char WORD_DELIM = ' ';
@@ -37,7 +40,16 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
     private static final String VALID_FILE_EXT          // For suggested replacements
             = CorporaParser.TXT_EXT;                    // Valid extension for input file
 
-    private int previousWord = 0;
+    // Threads used to look up candidates for separate errors (1 = serial)
+    public static final int DEFAULT_RANKING_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private volatile ExecutorService rankingExecutor;  // Null when ranking serially
+
+    // Results of previously checked sentences, relative to sentence start
+    private final SentenceResultCache<Map<Integer, LinkedList<String>>> spellingCache
+            = new SentenceResultCache<>();
+    private final SentenceResultCache<List<RuleMatch>> grammarCache
+            = new SentenceResultCache<>();
 
     /**
      * Constructor - for now, just activates as standard rules
@@ -57,9 +69,27 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
      * @param lt - the JLanguageTool instance
      */
     public EnhancedSpellCheck(POSTagger t, JLanguageTool lt) throws IOException {
+        this(t, lt, true);
+    }
+
+    /**
+     * Constructor that can leave the corpora to be loaded elsewhere and
+     * handed over with the setters as they become ready. Until the
+     * dictionary is set nothing can be spell checked; until the n-gram
+     * model is set suggestions are ranked by edit distance alone, and
+     * until the Wikipedia map is set it is not consulted.
+     * @param t - the tagger
+     * @param lt - the JLanguageTool instance
+     * @param load - true to load the corpora now, false to wait for the setters
+     */
+    public EnhancedSpellCheck(POSTagger t, JLanguageTool lt, boolean load) throws IOException {
         super(lt);
         tagger = t;
-        loadComponents();
+        if (load) {
+            loadComponents();
+        } else {
+            setRankingThreads(DEFAULT_RANKING_THREADS);
+        }
     }
 
     /**
@@ -75,6 +105,7 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
         if (tagger == null) {
             tagger = new POSTagger();
         }
+        setRankingThreads(DEFAULT_RANKING_THREADS);
 
         long endTime = System.currentTimeMillis();
         long runTime = endTime - startTime;
@@ -88,7 +119,7 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
      */
     private void loadWikiMap() {
         System.out.println("Loading Wikipedia Spelling Corpus...");
-        wikiMap = WikipediaSpellingParser.getWikipediaMap();
+        wikiMap = LexicalSnapshot.getSnapshot().getWikipediaMap();
         System.out.println("Done!");
     }
 
@@ -110,6 +141,41 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
         System.out.println("Done!");
     }
 
+    /**
+     * Hand over a loaded Wikipedia misspellings map. Cached results were
+     * ranked without it, so they are dropped. Call between checks.
+     * @param map - the map
+     */
+    public void setWikipediaMap(MisspelledWordMap map) {
+        wikiMap = map;
+        spellingCache.clear();
+    }
+
+    /**
+     * Hand over a loaded n-gram model. Cached results were ranked
+     * without it, so they are dropped. Call between checks.
+     * @param lm - the model
+     */
+    public void setNGramModel(NGramLM lm) {
+        nGramSearch = lm;
+        spellingCache.clear();
+    }
+
+    /**
+     * Hand over a loaded English dictionary. Call between checks.
+     * @param d - the dictionary
+     */
+    public void setDictionary(EnglishDictionary d) {
+        dict = d;
+        spellingCache.clear();
+    }
+
+    /**
+     * Check whether suggestions are ranked with the n-gram model
+     * @return true once the model is loaded
+     */
+    public boolean hasLanguageModel() { return nGramSearch != null; }
+
     /**
      * Wrapper method for main spell check method that takes filename.
      * @param filename - the text file to analyze
@@ -124,95 +190,296 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
     }
 
     /**
-     * Main spell check loop for text
+     * Main spell check loop for text. Sentences whose text has been
+     * checked before reuse their cached results; only new or edited
+     * sentences are analyzed.
      * @param text - the text to check
      * @return the suggested replacements indexed by error position
-     * @throws IOException
+     * @throws IOException (an InterruptedIOException if the thread is interrupted)
      */
     public HashMap<Integer, LinkedList<String>> checkSpelling(String text)
             throws IOException {
 
-        previousWord = 0;
-        Iterable<ScoredWord> errorList
-                = getErrorsFromWordList(SCStringFormat.getAllWordsAndPositions(text));
+        TokenizedDocument document = new TokenizedDocument(text);
         HashMap<Integer, LinkedList<String>> replacementMap = new HashMap<>();
-
-        // Add all the positions and replacements to the map, capitalizing first words
-        for (ScoredWord error : errorList) {
-            if (SCStringFormat.isFirstWordInSentence(text, (int) error.score)) {
-                replacementMap.put((int) error.score, SCStringFormat.capitalizeWords(
-                        getValidReplacements(getWindow(text, error.word), error.word)));
+        long keys[] = new long[document.getSentenceCount()];
+        List<Integer> changed = new ArrayList<>();
+
+        // Rebase the results of unchanged sentences to their new offsets
+        for (int sentence = 0; sentence < keys.length; sentence++) {
+            checkInterrupted();
+            keys[sentence] = getSpellingKey(document, sentence);
+            Map<Integer, LinkedList<String>> cached = spellingCache.get(keys[sentence],
+                    document.getText(), document.getSentenceStart(sentence),
+                    document.getSentenceEnd(sentence));
+            if (cached == null) {
+                changed.add(sentence);
+                flagUnknownWords(document, document.getFirstToken(sentence),
+                        document.getEndToken(sentence));
             } else {
-                replacementMap.put((int) error.score,
-                        getValidReplacements(getWindow(text, error.word), error.word));
+                SentenceResultCache.rebase(cached, document.getSentenceStart(sentence),
+                        replacementMap);
             }
         }
 
-        // Check for hyphenated words and british words
-        List<Integer> removeMe = new LinkedList<>();
-        for (Integer pos : replacementMap.keySet()) {
+        // Only the changed sentences have flagged errors to rank
+        HashMap<Integer, LinkedList<String>> ranked = rankAllReplacements(document);
+        for (int sentence : changed) {
+            int start = document.getSentenceStart(sentence);
+            Map<Integer, LinkedList<String>> relative = new HashMap<>();
+            for (int token = document.getFirstToken(sentence);
+                 token < document.getEndToken(sentence); token++) {
+                LinkedList<String> suggestions = ranked.get(document.getStart(token));
+                if (suggestions != null) {
+                    relative.put(document.getStart(token) - start, new LinkedList<>(suggestions));
+                }
+            }
+            spellingCache.put(keys[sentence], document.getText(), start,
+                    document.getSentenceEnd(sentence), relative);
+        }
+        replacementMap.putAll(ranked);
 
-            // Get the end of the word
-            int endOfWord = SCStringFormat.getEndOfCurrentWord(text, pos);
-            if (endOfWord < 0) { continue; }
+        if (SCGUI.DEBUG) {
+            System.out.println("Sentences analyzed: " + changed.size() + " of " + keys.length);
+            if (nGramSearch != null) { System.out.println(nGramSearch.getCache()); }
+            System.out.println("Spelling Errors Found: " + replacementMap.size());
+        }
 
-            // Check the word for valid hyphenation
-            String word = text.substring(pos, endOfWord);
-            int hyphens = SCStringFormat.countOccurrences(text, '-', false);
-            if (hyphens == 1 || hyphens == 2) {
-                removeMe.add(pos);
-            }
+        return replacementMap;
+    }
 
-            // Proper nouns
-            if (Character.isUpperCase(word.charAt(0))
-                    && !SCStringFormat.isFirstWordInSentence(text, pos)) {
-                removeMe.add(pos);
+    /**
+     * Rank the replacements for every unknown token in a document. Errors
+     * are independent of each other, so when a ranking executor is set
+     * their candidates are looked up concurrently. The candidates are then
+     * scored with the n-gram model on the calling thread, as the model is
+     * not shared between threads.
+     * @param document - the tokenized text with unknown tokens flagged
+     * @return the suggested replacements indexed by error position
+     * @throws IOException if ranking was interrupted
+     */
+    private HashMap<Integer, LinkedList<String>> rankAllReplacements(TokenizedDocument document)
+            throws IOException {
+        List<Integer> errors = new ArrayList<>();
+        for (int token = 0; token < document.size(); token++) {
+            if (document.isUnknown(token) && !isExcused(document, token)) { errors.add(token); }
+        }
+        List<LinkedList<String>> candidates = getAllPossibleReplacements(document, errors);
+
+        HashMap<Integer, LinkedList<String>> replacementMap = new HashMap<>();
+        for (int i = 0; i < errors.size(); i++) {
+            checkInterrupted();
+            replacementMap.put(document.getStart(errors.get(i)),
+                    rankReplacements(document, errors.get(i), candidates.get(i)));
+        }
+        return replacementMap;
+    }
+
+    /**
+     * Look up the possible replacements for each error. The dictionary and
+     * Wikipedia map are only read, so the lookups run concurrently when a
+     * ranking executor is set; results are kept in error order.
+     * @param document - the tokenized text
+     * @param errors - the token index of each error
+     * @return the possible replacements for each error
+     * @throws IOException if the lookups were interrupted
+     */
+    private List<LinkedList<String>> getAllPossibleReplacements(TokenizedDocument document,
+                                                              List<Integer> errors)
+            throws IOException {
+        List<LinkedList<String>> candidates = new ArrayList<>(errors.size());
+
+        // Serial path for a single thread or a single error
+        ExecutorService executor = rankingExecutor;
+        if (executor == null || errors.size() < 2) {
+            for (int token : errors) {
+                checkInterrupted();
+                candidates.add(getPossibleReplacements(document.getCleaned(token)));
             }
+            return candidates;
+        }
 
-            // Check for British spellings
-            if (isWord(cleanWord(word.replace("er", "re")))
-                    || isWord(cleanWord(word.replace("o", "ou")))
-                    || isWord(cleanWord(word.replace("ize", "ise")))
-                    || isWord(cleanWord(word.replace("ization", "isation")))
-                    || isWord(cleanWord(word.replace("ized", "ised")))
-                    || isWord(cleanWord(word.replace("se", "ce")))
-                    || isWord(cleanWord(word.replace("ction", "xion")))
-                    || isWord(cleanWord(word.replace("yze", "yse")))
-                    || isWord(cleanWord(word.replace("og", "ogue")))) {
-                removeMe.add(pos);
+        List<Callable<LinkedList<String>>> tasks = new ArrayList<>(errors.size());
+        for (int token : errors) {
+            tasks.add(() -> getPossibleReplacements(document.getCleaned(token)));
+        }
+        try {
+            for (Future<LinkedList<String>> result : executor.invokeAll(tasks)) {
+                candidates.add(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Spell check interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw new IOException(e.getCause());
+        }
+        return candidates;
+    }
+
+    /**
+     * Check whether an unknown token should not be reported: hyphenated
+     * compounds, proper nouns and British spellings of dictionary words
+     * @param document - the tokenized text
+     * @param token - the token index
+     * @return true if the token is not a spelling error
+     */
+    private boolean isExcused(TokenizedDocument document, int token) {
+        return document.isHyphenated(token) || document.isProperNoun(token)
+                || dict.isBritishVariant(document.getCleaned(token));
+    }
+
+    /**
+     * Rank the replacements for a single unknown token, capitalizing
+     * them if it is the first word of a sentence
+     * @param document - the tokenized text
+     * @param token - the token index of the error
+     * @param possible - the possible replacements
+     * @return the ranked list of replacements
+     */
+    private LinkedList<String> rankReplacements(TokenizedDocument document, int token,
+                                                LinkedList<String> possible) {
+        String word = document.getCleaned(token);
+        LinkedList<String> replacements = getValidReplacements(getWindow(document, token),
+                getWindowOffset(document, token), word, possible);
+        if (document.isFirstInSentence(token)) {
+            replacements = SCStringFormat.capitalizeWords(replacements);
         }
-        removeMe.forEach(replacementMap::remove);
+        return replacements;
+    }
 
-        System.out.println("Spelling Errors Found: " + replacementMap.size());
+    /**
+     * Set the number of threads used to look up suggestions, replacing
+     * any existing executor
+     * @param threads - the thread count (1 or less looks them up serially)
+     */
+    public synchronized void setRankingThreads(int threads) {
+        if (rankingExecutor != null) {
+            rankingExecutor.shutdown();
+        }
+        rankingExecutor = threads > 1 ? Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "StyleCheck-ranking");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
 
-        return replacementMap;
+    /**
+     * Stop the lookup threads once the spell checker is no longer needed.
+     * It can still be used afterwards, but looks suggestions up serially.
+     */
+    public void close() {
+        setRankingThreads(1);
     }
 
     /**
-     * Get a list of misspelled words from the list of all words
-     * @param wordList - the list of all words
-     * @return the list of misspelled words and positions
+     * Tokenize a text once and flag every token that is a misspelled word
+     * @param text - the text to tokenize
+     * @return the tokenized document
      */
-    private LinkedList<ScoredWord> getErrorsFromWordList(Collection<ScoredWord> wordList) {
-        return wordList.stream().filter(word -> !isWord(cleanWord(word.word))
-                && SCStringFormat.isPossibleWord(word.word))
-                .collect(Collectors.toCollection(LinkedList::new));
+    public TokenizedDocument tokenize(String text) {
+        TokenizedDocument document = new TokenizedDocument(text);
+        flagUnknownWords(document, 0, document.size());
+        return document;
     }
 
     /**
-     * Main grammar check loop for text
+     * Flag the misspelled words in a range of tokens
+     * @param document - the tokenized text
+     * @param first - the first token to check
+     * @param end - one past the last token to check
+     */
+    private void flagUnknownWords(TokenizedDocument document, int first, int end) {
+        for (int token = first; token < end; token++) {
+            document.setUnknown(token, !isWord(document.getCleaned(token))
+                    && SCStringFormat.isPossibleWord(document.getToken(token)));
+        }
+    }
+
+    /**
+     * Get the spelling cache key for a sentence. Whether its first word
+     * starts a sentence changes capitalization, so it is part of the key.
+     * @param document - the tokenized text
+     * @param sentence - the sentence id
+     * @return the key
+     */
+    private long getSpellingKey(TokenizedDocument document, int sentence) {
+        long key = SentenceResultCache.hash(document.getText(),
+                document.getSentenceStart(sentence), document.getSentenceEnd(sentence));
+        return document.isFirstInSentence(document.getFirstToken(sentence)) ? key : ~key;
+    }
+
+    /**
+     * Main grammar check loop for text. The text is split into sentences
+     * as LanguageTool would split it, and as with spelling, only new or
+     * edited sentences are passed to LanguageTool.
      * @param text - the text to check
      * @param ignored - ignored grammar rules
      * @return the suggested replacements index by error position
+     * @throws IOException (an InterruptedIOException if the thread is interrupted)
      */
     public HashMap<Integer, LinkedList<String>> checkGrammar(String text,
                                                 Map<String, String> ignored)
                                                 throws IOException {
 
-        List<RuleMatch> errorList = checkString(text);
         HashMap<Integer, LinkedList<String>> replacementMap = new HashMap<>();
 
+        // Check each sentence on its own, reusing results for unchanged text
+        for (int span[] : getSentenceSpans(text)) {
+            checkInterrupted();
+            int start = span[0];
+            long key = SentenceResultCache.hash(text, start, span[1]);
+            List<RuleMatch> errorList = grammarCache.get(key, text, start, span[1]);
+            if (errorList == null) {
+                errorList = getGrammarErrors(text.substring(start, span[1]));
+                grammarCache.put(key, text, start, span[1], errorList);
+            }
+
+            errorList.stream().filter(error -> !ignored.containsKey(error.getRule().getId()))
+                    .forEach(error -> replacementMap.put(start + error.getFromPos(),
+                            new LinkedList<>(error.getSuggestedReplacements())));
+        }
+
+        return replacementMap;
+    }
+
+    /**
+     * Split text into sentences the way LanguageTool does, so that
+     * abbreviations ("e.g.", "Dr.") and decimals do not end a sentence
+     * @param text - the text to split
+     * @return the {start, end} span of each sentence, covering the whole text
+     */
+    public List<int[]> getSentenceSpans(String text) {
+        List<int[]> spans = new ArrayList<>();
+        int start = 0;
+        for (String sentence : sentenceTokenize(text)) {
+            spans.add(new int[] { start, start + sentence.length() });
+            start += sentence.length();
+        }
+        return spans;
+    }
+
+    /**
+     * Stop a check if the thread has been interrupted
+     * @throws InterruptedIOException if it has
+     */
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Check interrupted");
+        }
+    }
+
+    /**
+     * Get the grammar errors in a sentence, without ignoring any rules
+     * @param sentence - the sentence text
+     * @return the grammar errors, positioned relative to the sentence
+     * @throws IOException
+     */
+    private List<RuleMatch> getGrammarErrors(String sentence) throws IOException {
+        List<RuleMatch> errorList = checkString(sentence);
+
         if (SCGUI.DEBUG) {
             for (RuleMatch error : errorList) {
                 System.out.println("Grammar error at pos "
@@ -221,8 +488,7 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
         }
 
         // Filter to only grammar errors
-        errorList.stream().filter(error -> !error.getRule().isSpellingRule()
-                && !ignored.containsKey(error.getRule().getId())
+        return errorList.stream().filter(error -> !error.getRule().isSpellingRule()
                 && error.getShortMessage() != null
                 && !error.getShortMessage().equals("null")
                 && !error.getShortMessage().equals("Redundant phrase")
@@ -231,117 +497,71 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
                 && !error.getShortMessage().equals("Commonly confused word")
                 && !error.getShortMessage().equals("Two consecutive dots")
                 && !error.getShortMessage().equals("Grammatical problem"))
-                .forEach(error -> replacementMap.put(error.getFromPos(),
-                        new LinkedList<>(error.getSuggestedReplacements())));
-
-
-        return replacementMap;
+                .collect(Collectors.toList());
     }
 
     /**
-     * Get the relevant "window" for n-gram processing
-     * @param text - the text
-     * @param word - the word
-     * @return the tagged window
+     * Get the relevant "window" for n-gram processing: up to
+     * MAX_N_GRAM_SIZE - 1 cleaned words either side of the token,
+     * stopping early at sentence boundaries and other spelling errors
+     * @param document - the tokenized text
+     * @param token - the token index of the word
+     * @return the cleaned window
      */
-    public LinkedList<String> getWindow(String text, String word) {
-        LinkedList<String> sentenceWords
-                = SCStringFormat.getAllWords(text, previousWord);
-        int wordPosition = sentenceWords.indexOf(word);
-        previousWord = wordPosition + previousWord;
-
-        int firstWord = wordPosition - (NGramLM.MAX_N_GRAM_SIZE - 1);
-        int lastWord = wordPosition + (NGramLM.MAX_N_GRAM_SIZE - 1);
-
-        // Check if the window starts and/or ends the sentence
-        if (firstWord < 0) {
-            firstWord = 0;
+    public LinkedList<String> getWindow(TokenizedDocument document, int token) {
+        int last = token;
+        while (last + 1 < document.size() && last + 1 - token < NGramLM.MAX_N_GRAM_SIZE
+                && isInWindow(document, token, last + 1)) {
+            last++;
         }
-        if (lastWord >= sentenceWords.size()) {
-            lastWord = sentenceWords.size() - 1;
-        }
-        int offset = firstWord;
-
-        // Create window
-        LinkedList<String> window = cleanWindow(new LinkedList<>(
-                sentenceWords.subList(firstWord, lastWord + 1)));
 
-        if (SCGUI.DEBUG_FINE) {
-            System.out.println("Cleaned Window: "
-                    + SCStringFormat.wordListAsPhrase(window));
-        }
-
-        // Check if another spelling error/s exists inside the window
-        Iterable<Integer> otherErrors = window.stream().filter(
-                windowWord -> !dict.isValidWord(windowWord.toLowerCase())
-                && !word.equals(windowWord)).map(sentenceWords::indexOf)
-                .collect(Collectors.toCollection(LinkedList::new));
-
-        // Adjust window bounds
-        wordPosition = window.indexOf(word);
-        for (Integer error : otherErrors) {
-            if (error < wordPosition && error >= firstWord) {
-                firstWord = error + 1;
-            } else if (error > wordPosition && error <= lastWord) {
-                lastWord = error - 1;
-            }
+        LinkedList<String> window = new LinkedList<>();
+        for (int i = getWindowStart(document, token); i <= last; i++) {
+            window.add(document.getCleaned(i));
         }
 
         if (SCGUI.DEBUG_FINE) {
-            System.out.println("First: " + firstWord + ", Last: "
-                    + lastWord + ", Offset: " + offset + ", Window: "
+            System.out.println("Cleaned Window: "
                     + SCStringFormat.wordListAsPhrase(window));
         }
-        if (lastWord - offset + 1 <= firstWord - offset) {
-            lastWord = Math.min(firstWord + 2, window.size() - 1);
-            if (lastWord - offset + 1 < 0) {
-                return new LinkedList<>();
-            }
-        }
+        return window;
+    }
 
-        // Now that we have definite boundaries return the window
-        return new LinkedList<>(window.subList(firstWord - offset,
-                lastWord - offset + 1));
+    /**
+     * Get the position of a token within its window
+     * @param document - the tokenized text
+     * @param token - the token index of the word
+     * @return the index of the word within getWindow(document, token)
+     */
+    public int getWindowOffset(TokenizedDocument document, int token) {
+        return token - getWindowStart(document, token);
     }
 
     /**
-     * Remove any non-words (i.e. punctuation), trim whitespace, etc.
-     * Generally clean up input for the n-gram ranking to do its job.
-     * @param window - the sentence context word list
-     * @return the new window
+     * Get the first token index of a token's window
+     * @param document - the tokenized text
+     * @param token - the token index of the word
+     * @return the first token index in the window
      */
-    private LinkedList<String> cleanWindow(LinkedList<String> window) {
-        if (SCGUI.DEBUG_FINE) {
-            System.out.println("Window before cleaning: "
-                    + SCStringFormat.wordListAsPhrase(window));
+    private int getWindowStart(TokenizedDocument document, int token) {
+        int first = token;
+        while (first > 0 && token - (first - 1) < NGramLM.MAX_N_GRAM_SIZE
+                && isInWindow(document, token, first - 1)) {
+            first--;
         }
-        return window.stream().map(this::cleanWord)
-                .collect(Collectors.toCollection(LinkedList::new));
+        return first;
     }
 
     /**
-     * Trim whitespace, punctuation, etc. from a word
-     * @param word - the word to operate on
-     * @return the new word
+     * Check if a neighbouring token can be part of a token's window
+     * @param document - the tokenized text
+     * @param token - the token index of the word
+     * @param other - the neighbouring token index
+     * @return true if the neighbour is in the same sentence and not an error
      */
-    private String cleanWord(String word) {
-        int start = 0;
-        int end = word.length() - 1;
-        while (start < word.length() - 1) {
-            if (!Character.isLetterOrDigit(word.charAt(start))
-                    && word.charAt(start) != '\''
-                    && word.charAt(start) != '-') {
-                start++;
-            } else { break; }
-        }
-        while (end >= 0 && end > start) {
-            if (!Character.isLetterOrDigit(word.charAt(end))
-                    && word.charAt(end) != '\''
-                    && word.charAt(end) != '-') {
-                end--;
-            } else { break; }
-        }
-        return word.substring(start, end + 1).toLowerCase();
+    private boolean isInWindow(TokenizedDocument document, int token, int other) {
+        return document.getSentenceId(other) == document.getSentenceId(token)
+                && !document.isUnknown(other);
     }
 
     /**
@@ -377,8 +597,9 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
         if (errorPos < 0 || errorPos >= text.length()) {
             throw new IllegalArgumentException("Error index out of range.");
         }
+        int end = text.indexOf(SENTENCE_DELIM, errorPos);
         return text.substring(text.lastIndexOf(SENTENCE_DELIM, errorPos) + 1,
-                text.indexOf(SENTENCE_DELIM, errorPos)).trim();
+                end < 0 ? text.length() : end).trim();
     }
 
     /**
@@ -400,15 +621,36 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
      */
     public LinkedList<String> getValidReplacements(LinkedList<String> window, String word,
                                             LinkedList<String> possible) {
+        return getValidReplacements(window, window.indexOf(word), word, possible);
+    }
 
-        // Get pure n-gram scored replacements (unsorted)
-        LinkedList<ScoredWord> replacements = nGramSearch.scorePossibleReplacements(
-                window, window.indexOf(word), possible);
+    /**
+     * Get all possible replacements for a word then filter by validity.
+     * @param window - the sentence context
+     * @param errorIndex - the position of the word within the window
+     * @param word - the word to query
+     * @param possible - the list of possible replacements
+     * @return the list of valid replacements
+     */
+    public LinkedList<String> getValidReplacements(LinkedList<String> window, int errorIndex,
+                                                   String word, LinkedList<String> possible) {
+
+        // Get pure n-gram scored replacements (unsorted), or unscored ones without the model
+        NGramLM lm = nGramSearch;
+        LinkedList<ScoredWord> replacements;
+        if (lm != null) {
+            replacements = lm.scorePossibleReplacements(window, errorIndex, possible);
+        } else {
+            replacements = new LinkedList<>();
+            for (String replace : possible) { replacements.add(new ScoredWord(replace, 0)); }
+        }
 
         // Append weighted Levenshtein distance score and sort
+        StringDistance distance = StringDistance.getLocalInstance();
+        String lowerWord = word.toLowerCase();
         for (ScoredWord replace : replacements) {
             replace.score -= LEVENSHTEIN_WEIGHT
-                    * StringDistance.levenshtein(word, replace.word);
+                    * distance.bitParallelDistance(lowerWord, replace.word.toLowerCase());
         }
         Collections.sort(replacements, Collections.reverseOrder());
 
@@ -454,7 +696,8 @@ public class EnhancedSpellCheck extends SpellGrammarCheck {
      * @return - a LinkedList of possible corrections
      */
     LinkedList<String> getWikipediaWords(String word) {
-        return wikiMap.getCorrections(word);
+        MisspelledWordMap map = wikiMap;
+        return map == null ? null : map.getCorrections(word);
     }
 
     /**
@@ -0,0 +1,92 @@
+package assets.spellcheck;
+
+import assets.general.SentenceCache;
+
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Bounded memo of per-sentence check results, keyed by a 64-bit hash
+ * of the sentence text. Results are stored with offsets relative to
+ * the sentence start, so a sentence that has only moved within the
+ * document can be reused by rebasing its offsets. The sentence text is
+ * stored with each result and a hit is only returned if it matches, so
+ * hash collisions are harmless.
+ *
+ * Written for the StyleCheck program by Alex Welton.
+ *
+ */
+class SentenceResultCache<V> extends SentenceCache<SentenceResultCache.Result<V>> {
+
+    /**
+     * A cached result and the sentence it was found for
+     */
+    static class Result<V> {
+
+        final String sentence;
+        final V value;
+
+        /**
+         * Create a result
+         * @param s - the sentence text
+         * @param v - the result
+         */
+        Result(String s, V v) {
+            sentence = s;
+            value = v;
+        }
+    }
+
+    /**
+     * Get the cached result for a sentence held in part of a text
+     * @param key - the sentence key
+     * @param text - the text
+     * @param start - the start of the sentence
+     * @param end - the end of the sentence (exclusive)
+     * @return the result, or null if the sentence is not cached
+     */
+    V get(long key, CharSequence text, int start, int end) {
+        Result<V> result = get(key, cached -> matches(cached.sentence, text, start, end));
+        return result == null ? null : result.value;
+    }
+
+    /**
+     * Cache the result for a sentence held in part of a text
+     * @param key - the sentence key
+     * @param text - the text
+     * @param start - the start of the sentence
+     * @param end - the end of the sentence (exclusive)
+     * @param value - the result
+     */
+    void put(long key, CharSequence text, int start, int end, V value) {
+        put(key, new Result<>(text.subSequence(start, end).toString(), value));
+    }
+
+    /**
+     * Check whether a stored sentence matches part of a text, without copying it
+     * @param sentence - the stored sentence
+     * @param text - the text
+     * @param start - the start of the part
+     * @param end - the end of the part (exclusive)
+     * @return true if they hold the same characters
+     */
+    private static boolean matches(String sentence, CharSequence text, int start, int end) {
+        if (sentence.length() != end - start) { return false; }
+        for (int i = 0; i < sentence.length(); i++) {
+            if (sentence.charAt(i) != text.charAt(start + i)) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Copy sentence-relative suggestions into a document map at a new offset
+     * @param relative - the suggestions keyed by offset within the sentence
+     * @param offset - the sentence's current start offset
+     * @param into - the document map to add to
+     */
+    static void rebase(Map<Integer, LinkedList<String>> relative, int offset,
+                       Map<Integer, LinkedList<String>> into) {
+        relative.forEach((pos, suggestions) -> into.put(pos + offset, new LinkedList<>(suggestions)));
+    }
+
+}
@@ -45,12 +45,16 @@ class SpellCheckClient {
         EnhancedSpellCheck spellCheck = new EnhancedSpellCheck();
         String fileToCheck;
 
-        while (true) {
-            fileToCheck = getUserPath();
-            if (fileToCheck.toLowerCase().equals("quit")) {
-                return;
+        try {
+            while (true) {
+                fileToCheck = getUserPath();
+                if (fileToCheck.toLowerCase().equals("quit")) {
+                    return;
+                }
+                spellCheck.checkFileSpelling(fileToCheck);
             }
-            spellCheck.checkFileSpelling(fileToCheck);
+        } finally {
+            spellCheck.close();
         }
 
     }
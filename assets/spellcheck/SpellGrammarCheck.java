@@ -91,6 +91,17 @@ class SpellGrammarCheck {
         return new LinkedList<>(match.getSuggestedReplacements());
     }
 
+    /**
+     * Split text into sentences as LanguageTool does when checking it.
+     * Each sentence keeps the whitespace that follows it, so together
+     * they add up to the text.
+     * @param text - the text to split
+     * @return the sentences, in order
+     */
+    List<String> sentenceTokenize(String text) {
+        return langTool.sentenceTokenize(text);
+    }
+
     /**
      * Takes a section of text and returns a list of sentences as Strings.
      * @param text - the text to parse